@@ -0,0 +1,88 @@
+import java.util.SplittableRandom;
+
+// 按边权抽样出边的别名表（Vose 算法）：每个节点的出边各占一个槽位，槽位保存接受概率和别名边
+// 抽样时等概率选一个槽位，再以接受概率决定取该槽位的边还是它的别名，代价为 O(1)
+// 表与 CSR 的边一一对应，对整个图构建一次，代价为 O(E)
+public class AliasTable {
+    private final CompactGraph graph;
+    private final double[] probability;
+    // 别名边在 CSR 中的下标
+    private final int[] alias;
+
+    public AliasTable(CompactGraph graph) {
+        this.graph = graph;
+        int[] offsets = graph.getOffsets();
+        int[] weights = graph.getWeights();
+        int n = graph.nodeCount();
+        this.probability = new double[graph.edgeCount()];
+        this.alias = new int[graph.edgeCount()];
+        int maxDegree = 0;
+        for (int node = 0; node < n; node++) {
+            maxDegree = Math.max(maxDegree, offsets[node + 1] - offsets[node]);
+        }
+        double[] scaled = new double[maxDegree];
+        int[] small = new int[maxDegree];
+        int[] large = new int[maxDegree];
+        for (int node = 0; node < n; node++) {
+            build(weights, offsets[node], offsets[node + 1], scaled, small, large);
+        }
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    // 按边权随机选 node 的一条出边，返回它在 CSR 中的下标；没有出边时返回 -1
+    public int sampleEdge(int node, SplittableRandom random) {
+        int[] offsets = graph.getOffsets();
+        int from = offsets[node];
+        int degree = offsets[node + 1] - from;
+        if (degree == 0) {
+            return -1;
+        }
+        int edge = from + random.nextInt(degree);
+        return random.nextDouble() < probability[edge] ? edge : alias[edge];
+    }
+
+    // 为边 [from, to) 建表：权重缩放到平均为 1，不足 1 的槽位用超过 1 的边补满
+    private void build(int[] weights, int from, int to, double[] scaled, int[] small, int[] large) {
+        int degree = to - from;
+        long total = 0;
+        for (int e = from; e < to; e++) {
+            total += weights[e];
+        }
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < degree; i++) {
+            scaled[i] = (double) weights[from + i] * degree / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[from + less] = scaled[less];
+            alias[from + less] = from + more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // 剩下的槽位理论上概率都为 1，浮点误差留下的也按 1 处理
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            probability[from + i] = 1.0;
+            alias[from + i] = from + i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            probability[from + i] = 1.0;
+            alias[from + i] = from + i;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 全源最短路径：对每个节点做一次单源 Dijkstra，在 ForkJoinPool 上按起点并行
+// 每个叶子任务复用自己的 ShortestPathTree，结果写入 V x V 的距离矩阵和前驱矩阵
+// 之后任意两点的距离为 O(1) 查询，路径按前驱矩阵回溯，代价与路径长度成正比
+public class AllPairsShortestPaths {
+    // 叶子任务至少负责的起点个数；叶子数约为并行度的 4 倍，每个叶子只分配一棵最短路径树
+    private static final int SOURCES_PER_TASK = 16;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final CompactGraph graph;
+    private final IntMatrix distances;
+    private final IntMatrix predecessors;
+
+    private AllPairsShortestPaths(CompactGraph graph, IntMatrix distances, IntMatrix predecessors) {
+        this.graph = graph;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    // 结果保存在堆内存中
+    public static AllPairsShortestPaths compute(CompactGraph graph, ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        AllPairsShortestPaths result = new AllPairsShortestPaths(graph, new HeapMatrix(n), new HeapMatrix(n));
+        result.fill(pool);
+        return result;
+    }
+
+    // 结果写入 directory 下的两个内存映射文件，适合放不进堆的大图
+    public static AllPairsShortestPaths compute(CompactGraph graph, ForkJoinPool pool, Path directory)
+            throws IOException {
+        int n = graph.nodeCount();
+        AllPairsShortestPaths result = new AllPairsShortestPaths(graph,
+                new MappedMatrix(directory.resolve("distances.bin"), n),
+                new MappedMatrix(directory.resolve("predecessors.bin"), n));
+        result.fill(pool);
+        return result;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    // source 到 target 的最短距离，不可达时为 ShortestPathTree.UNREACHABLE
+    public int distance(int source, int target) {
+        return distances.get(source, target);
+    }
+
+    // source 到 target 的路径（单词列表），与 ShortestPathTree.path 的约定相同
+    public List<String> path(int source, int target) {
+        if (predecessors.get(source, target) < 0) {
+            return null;
+        }
+        List<String> path = new ArrayList<>();
+        for (int at = target; at >= 0; at = predecessors.get(source, at)) {
+            path.add(graph.word(at));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void fill(ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        int leafSize = Math.max(SOURCES_PER_TASK, n / (pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new SourceTask(0, n, leafSize));
+    }
+
+    private final class SourceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        SourceTask(int from, int to, int leafSize) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SourceTask(from, middle, leafSize), new SourceTask(middle, to, leafSize));
+                return;
+            }
+            // 状态属于任务本身，任务结束后不会留在线程池的线程上
+            ShortestPathTree tree = new ShortestPathTree(graph);
+            for (int source = from; source < to; source++) {
+                tree.compute(source);
+                distances.setRow(source, tree.distances());
+                predecessors.setRow(source, tree.predecessors());
+            }
+        }
+    }
+
+    // 按行写入、随机读取的 int 方阵
+    private interface IntMatrix {
+        int get(int row, int column);
+
+        void setRow(int row, int[] values);
+    }
+
+    private static final class HeapMatrix implements IntMatrix {
+        private final int[][] rows;
+
+        HeapMatrix(int size) {
+            rows = new int[size][];
+        }
+
+        @Override
+        public int get(int row, int column) {
+            return rows[row][column];
+        }
+
+        @Override
+        public void setRow(int row, int[] values) {
+            rows[row] = values.clone();
+        }
+    }
+
+    // 文件按行分段映射，每段不超过 1 GB
+    private static final class MappedMatrix implements IntMatrix {
+        private static final long SEGMENT_BYTES = 1L << 30;
+        private final int size;
+        private final int rowsPerSegment;
+        private final IntBuffer[] segments;
+
+        MappedMatrix(Path file, int size) throws IOException {
+            this.size = size;
+            long rowBytes = (long) size * Integer.BYTES;
+            this.rowsPerSegment = (int) Math.max(1, SEGMENT_BYTES / Math.max(1, rowBytes));
+            int segmentCount = size == 0 ? 0 : (size + rowsPerSegment - 1) / rowsPerSegment;
+            this.segments = new IntBuffer[segmentCount];
+            Files.deleteIfExists(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < segmentCount; i++) {
+                    int rows = Math.min(rowsPerSegment, size - i * rowsPerSegment);
+                    segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                            i * (long) rowsPerSegment * rowBytes, rows * rowBytes).asIntBuffer();
+                }
+            }
+        }
+
+        @Override
+        public int get(int row, int column) {
+            return segments[row / rowsPerSegment].get((row % rowsPerSegment) * size + column);
+        }
+
+        // 每次写入使用独立的 duplicate 视图，不同线程写入不同的行互不影响
+        @Override
+        public void setRow(int row, int[] values) {
+            IntBuffer segment = segments[row / rowsPerSegment].duplicate();
+            segment.position((row % rowsPerSegment) * size);
+            segment.put(values, 0, size);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// 异步输出：调用方把记录放入有界队列后立即返回，后台线程成批取出，编码到缓冲区后通过文件通道写出
+// 队列满时调用方阻塞，写得慢时自然限流而不会占满内存
+// 可选 gzip 压缩；设置了轮转大小时，当前文件写满后换到下一个文件：a.txt、a-1.txt、a-2.txt……
+// 后台线程是守护线程，并注册了关闭钩子，程序退出时会写完队列中剩余的记录
+// 文件以追加方式打开；同一个文件同时只能有一个输出，多处需要写同一个文件时通过 shared 共用一个实例
+public class AsyncOutputSink implements Closeable {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // 等待后台线程时检查它是否还活着的间隔
+    private static final long POLL_MILLIS = 100;
+    // 队列中表示关闭的标记
+    private static final Object END = new Object();
+    // 正在写的文件（规范化的绝对路径）到输出的映射，访问时锁住 AsyncOutputSink.class
+    private static final Map<Path, AsyncOutputSink> OPEN = new HashMap<>();
+
+    private final Path file;
+    private final Path key;
+    // 共用该实例的调用方数量，每次 close 减一，减到 0 时才真正关闭；访问时锁住 AsyncOutputSink.class
+    private int references = 1;
+    private final boolean gzip;
+    // 单个文件最多写入的字节数（压缩前），为 0 时不轮转
+    private final long rotateBytes;
+    private final BlockingQueue<Object> queue;
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // 以下字段只由后台线程访问
+    private FileChannel fileChannel;
+    private WritableByteChannel channel;
+    private GZIPOutputStream gzipStream;
+    private int fileIndex;
+    private long fileBytes;
+
+    private volatile Path currentFile;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    public AsyncOutputSink(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY, false, 0);
+    }
+
+    // 返回 file 上已经打开的输出并增加一次引用，没有时按默认参数新建；每次调用都要对应一次 close
+    // 查找与新建在同一次加锁中完成，并发调用不会各自新建；构造器里再次加锁是可重入的
+    public static AsyncOutputSink shared(Path file) throws IOException {
+        synchronized (AsyncOutputSink.class) {
+            AsyncOutputSink sink = OPEN.get(file.toAbsolutePath().normalize());
+            if (sink != null) {
+                sink.references++;
+                return sink;
+            }
+            return new AsyncOutputSink(file);
+        }
+    }
+
+    // capacity 为队列能容纳的记录数；gzip 为 true 时文件名后加 .gz
+    public AsyncOutputSink(Path file, int capacity, boolean gzip, long rotateBytes) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("队列容量至少为 1: " + capacity);
+        }
+        if (rotateBytes < 0) {
+            throw new IllegalArgumentException("轮转大小不能为负: " + rotateBytes);
+        }
+        this.file = file;
+        this.key = file.toAbsolutePath().normalize();
+        this.gzip = gzip;
+        this.rotateBytes = rotateBytes;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        synchronized (AsyncOutputSink.class) {
+            if (OPEN.containsKey(key)) {
+                throw new IllegalStateException("文件已经有一个输出在写: " + file);
+            }
+            // 轮转时从已有的最后一个文件接着写，保持记录的先后顺序
+            while (rotateBytes > 0 && Files.exists(fileName(fileIndex + 1))) {
+                fileIndex++;
+            }
+            // 在调用方线程打开第一个文件，路径有问题时立即报错
+            open();
+            this.writer = new Thread(this::drain, "AsyncOutputSink-" + file.getFileName());
+            this.writer.setDaemon(true);
+            this.writer.start();
+            this.shutdownHook = new Thread(this::closeQuietly);
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            // 构造完成后才登记，其他线程通过 shared 拿到的总是完整的实例
+            OPEN.put(key, this);
+        }
+    }
+
+    // 正在写入的文件
+    public Path currentFile() {
+        return currentFile;
+    }
+
+    // 追加一条记录（自动换行），队列满时等待；之前的写出失败或后台线程已退出时在这里抛出
+    public void write(String record) throws IOException {
+        checkOpen();
+        try {
+            while (!queue.offer(record, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkWriter();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写出队列时被中断");
+        }
+    }
+
+    // 等待此前的记录全部写入文件；后台线程已经退出时抛出异常而不是一直等待
+    public void flush() throws IOException {
+        checkOpen();
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            while (!queue.offer(done, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkWriter();
+            }
+            while (!done.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkWriter();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写出时被中断");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // 把游走路径按行写成以空格分隔的单词，可直接交给 RandomWalkEngine
+    public RandomWalkEngine.Sink walkSink(CompactGraph graph) {
+        return (index, path, length) -> {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    line.append(' ');
+                }
+                line.append(graph.word(path[i]));
+            }
+            try {
+                write(line.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    // 释放一次引用；最后一个引用释放时写完队列中剩余的记录后关闭文件
+    @Override
+    public void close() throws IOException {
+        synchronized (AsyncOutputSink.class) {
+            if (closed || --references > 0) {
+                return;
+            }
+            OPEN.remove(key, this);
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // 已经在关闭钩子中
+        }
+        closeQuietly();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private synchronized void closeQuietly() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (AsyncOutputSink.class) {
+            OPEN.remove(key, this);
+        }
+        boolean interrupted = false;
+        // 后台线程被中断退出后不再取队列，不能无限等待队列腾出空位
+        while (writer.isAlive()) {
+            try {
+                if (queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    writer.join();
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("输出已关闭: " + file);
+        }
+        checkWriter();
+    }
+
+    // 后台线程被中断退出后不会再取队列
+    private void checkWriter() throws IOException {
+        if (!writer.isAlive()) {
+            throw failure != null ? failure : new IOException("后台写出线程已经退出: " + file);
+        }
+    }
+
+    // 后台线程：成批取出记录写入缓冲区，每批结束时写出缓冲区
+    // 写出失败后继续取出并丢弃记录，调用方不会因为队列满而永远阻塞，失败在下一次调用时抛出
+    private void drain() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Object item : batch) {
+                    try {
+                        if (item == END) {
+                            closeFile();
+                            return;
+                        }
+                        if (item instanceof CountDownLatch) {
+                            flushFile();
+                        } else if (failure == null) {
+                            append(((String) item + "\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                    } catch (IOException e) {
+                        fail(e);
+                        if (item == END) {
+                            return;
+                        }
+                    } finally {
+                        if (item instanceof CountDownLatch) {
+                            ((CountDownLatch) item).countDown();
+                        }
+                    }
+                }
+                batch.clear();
+                try {
+                    flushBuffer();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 中断或关闭后仍要放行等待 flush 的调用方
+            for (Object item : batch) {
+                if (item instanceof CountDownLatch) {
+                    ((CountDownLatch) item).countDown();
+                }
+            }
+            if (channel != null) {
+                try {
+                    closeFile();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        if (rotateBytes > 0 && fileBytes > 0 && fileBytes + bytes.length > rotateBytes) {
+            closeFile();
+            fileIndex++;
+            open();
+        }
+        fileBytes += bytes.length;
+        if (bytes.length > buffer.remaining()) {
+            flushBuffer();
+        }
+        if (bytes.length > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(bytes));
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (failure != null || channel == null) {
+            buffer.clear();
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    // 缓冲区和压缩流中的内容都写到文件里
+    private void flushFile() throws IOException {
+        flushBuffer();
+        if (gzipStream != null && failure == null) {
+            gzipStream.flush();
+        }
+    }
+
+    private void open() throws IOException {
+        Path path = fileName(fileIndex);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // 追加写入，已有的内容不会被覆盖
+        fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (gzip) {
+            OutputStream out = Channels.newOutputStream(fileChannel);
+            gzipStream = new GZIPOutputStream(out, BUFFER_SIZE, true);
+            channel = Channels.newChannel(gzipStream);
+        } else {
+            gzipStream = null;
+            channel = fileChannel;
+        }
+        // 轮转大小按压缩前的字节数计算，压缩文件无法得知已有内容压缩前的大小，从 0 开始
+        fileBytes = gzip ? 0 : fileChannel.size();
+        currentFile = path;
+    }
+
+    private void closeFile() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            WritableByteChannel closing = channel;
+            channel = null;
+            if (closing != null) {
+                closing.close();
+            }
+            fileChannel.close();
+        }
+    }
+
+    // 第 index 个文件：在扩展名之前插入 -index，压缩时再加 .gz
+    private Path fileName(int index) {
+        String name = file.getFileName().toString();
+        if (index > 0) {
+            int dot = name.lastIndexOf('.');
+            name = dot > 0
+                    ? name.substring(0, dot) + "-" + index + name.substring(dot)
+                    : name + "-" + index;
+        }
+        if (gzip) {
+            name += ".gz";
+        }
+        return file.resolveSibling(name);
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+}
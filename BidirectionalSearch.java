@@ -0,0 +1,132 @@
+import java.util.*;
+
+// 点对点最短路径：从起点沿出边、从终点沿入边同时做 Dijkstra，两侧相遇后即可停止
+// 距离数组用版本号标记是否属于本次查询，每次查询不需要按节点数初始化，代价只与搜索到的区域有关
+// 提供可达性索引时，两侧都跳过不可能位于起点到终点路径上的节点
+public class BidirectionalSearch {
+    private final CompactGraph graph;
+    private final ReachabilityIndex reachability;
+    private final int[] forwardDistance;
+    private final int[] backwardDistance;
+    // 正向搜索中的前一个节点、反向搜索中的后一个节点
+    private final int[] previous;
+    private final int[] next;
+    // 节点的正向/反向距离只有在对应标记等于当前版本号时才有效
+    private final int[] forwardStamp;
+    private final int[] backwardStamp;
+    private final VersionStamp versions;
+    private int version;
+    private final IndexedMinHeap forwardQueue;
+    private final IndexedMinHeap backwardQueue;
+
+    private int source = -1;
+    private int target = -1;
+    private int meeting = -1;
+    private long best;
+
+    public BidirectionalSearch(CompactGraph graph) {
+        this(graph, null);
+    }
+
+    // reachability 可以为 null，不为 null 时必须建立在同一个图上
+    public BidirectionalSearch(CompactGraph graph, ReachabilityIndex reachability) {
+        int n = graph.nodeCount();
+        this.graph = graph;
+        this.reachability = reachability;
+        this.forwardDistance = new int[n];
+        this.backwardDistance = new int[n];
+        this.previous = new int[n];
+        this.next = new int[n];
+        this.forwardStamp = new int[n];
+        this.backwardStamp = new int[n];
+        this.versions = new VersionStamp(forwardStamp, backwardStamp);
+        this.forwardQueue = new IndexedMinHeap(n);
+        this.backwardQueue = new IndexedMinHeap(n);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    // 计算 source 到 target 的最短距离，不可达或二者相同时返回 ShortestPathTree.UNREACHABLE
+    public int search(int source, int target) {
+        this.source = source;
+        this.target = target;
+        this.meeting = -1;
+        this.best = Long.MAX_VALUE;
+        if (source == target || reachability != null && !reachability.mayReach(source, target)) {
+            return ShortestPathTree.UNREACHABLE;
+        }
+        version = versions.next();
+        forwardQueue.clear();
+        backwardQueue.clear();
+        label(forwardStamp, forwardDistance, previous, source, 0, -1);
+        label(backwardStamp, backwardDistance, next, target, 0, -1);
+        forwardQueue.offer(source, 0);
+        backwardQueue.offer(target, 0);
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            // 两侧队首之和不小于当前最优值时，不可能再找到更短的路径
+            if (forwardQueue.peekKey() + backwardQueue.peekKey() >= best) {
+                break;
+            }
+            // 优先扩展较小的一侧
+            if (forwardQueue.size() <= backwardQueue.size()) {
+                expand(true, forwardQueue, forwardStamp, forwardDistance, previous, backwardStamp, backwardDistance,
+                        graph.getOffsets(), graph.getTargets(), graph.getWeights());
+            } else {
+                expand(false, backwardQueue, backwardStamp, backwardDistance, next, forwardStamp, forwardDistance,
+                        graph.getInOffsets(), graph.getInSources(), graph.getInWeights());
+            }
+        }
+        return meeting < 0 ? ShortestPathTree.UNREACHABLE : (int) Math.min(best, ShortestPathTree.UNREACHABLE - 1);
+    }
+
+    // 最近一次 search 的路径（单词列表），不可达时返回 null
+    public List<String> path() {
+        if (meeting < 0) {
+            return null;
+        }
+        List<String> path = new ArrayList<>();
+        for (int at = meeting; at >= 0; at = previous[at]) {
+            path.add(graph.word(at));
+        }
+        Collections.reverse(path);
+        for (int at = next[meeting]; at >= 0; at = next[at]) {
+            path.add(graph.word(at));
+        }
+        return path;
+    }
+
+    private void expand(boolean forward, IndexedMinHeap queue, int[] stamp, int[] distance, int[] parent,
+                        int[] otherStamp, int[] otherDistance, int[] offsets, int[] neighbors, int[] weights) {
+        int node = queue.poll();
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            int neighbor = neighbors[e];
+            if (reachability != null && !(forward
+                    ? reachability.mayReach(neighbor, target)
+                    : reachability.mayReach(source, neighbor))) {
+                continue;
+            }
+            long newDistance = (long) distance[node] + weights[e];
+            if (newDistance >= ShortestPathTree.UNREACHABLE) {
+                continue;
+            }
+            if (stamp[neighbor] != version || newDistance < distance[neighbor]) {
+                label(stamp, distance, parent, neighbor, (int) newDistance, node);
+                queue.offer(neighbor, newDistance);
+                // 另一侧已经到达过该节点，得到一条候选路径
+                if (otherStamp[neighbor] == version && newDistance + otherDistance[neighbor] < best) {
+                    best = newDistance + otherDistance[neighbor];
+                    meeting = neighbor;
+                }
+            }
+        }
+    }
+
+    private void label(int[] stamp, int[] distance, int[] parent, int node, int value, int from) {
+        stamp[node] = version;
+        distance[node] = value;
+        parent[node] = from;
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 桥接词索引：word1 到 word2 的桥接词就是 out(word1) 与 in(word2) 的交集
+// 两个列表都按 id 升序存放在 CompactGraph 中，求交集不需要任何哈希查找
+// 最近查询过的单词对的结果保存在 LRU 缓存中，热门单词对可直接命中
+public class BridgeIndex {
+    private final CompactGraph graph;
+    private final int cacheSize;
+    private final Map<Long, int[]> cache;
+
+    // cacheSize 为缓存的单词对数量，为 0 时不缓存
+    public BridgeIndex(CompactGraph graph, int cacheSize) {
+        this.graph = graph;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > BridgeIndex.this.cacheSize;
+            }
+        };
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    // 返回桥接词 id（升序），结果可能来自缓存，调用方不得修改
+    public int[] bridgeWords(int word1, int word2) {
+        if (cacheSize == 0) {
+            int[] buffer = new int[Math.min(graph.outDegree(word1), graph.inDegree(word2))];
+            return Arrays.copyOf(buffer, bridgeWords(word1, word2, buffer));
+        }
+        long key = TextGraph.edgeKey(word1, word2);
+        int[] cached = cache.get(key);
+        if (cached == null) {
+            int[] buffer = new int[Math.min(graph.outDegree(word1), graph.inDegree(word2))];
+            cached = Arrays.copyOf(buffer, bridgeWords(word1, word2, buffer));
+            cache.put(key, cached);
+        }
+        return cached;
+    }
+
+    // 把桥接词 id 写入调用方提供的缓冲区，返回个数
+    // 缓冲区长度不小于 min(outDegree(word1), inDegree(word2))
+    public int bridgeWords(int word1, int word2, int[] buffer) {
+        int[] targets = graph.getTargets();
+        int[] sources = graph.getInSources();
+        int outFrom = graph.getOffsets()[word1];
+        int outTo = graph.getOffsets()[word1 + 1];
+        int inFrom = graph.getInOffsets()[word2];
+        int inTo = graph.getInOffsets()[word2 + 1];
+        int outSize = outTo - outFrom;
+        int inSize = inTo - inFrom;
+        if (outSize == 0 || inSize == 0) {
+            return 0;
+        }
+        // 一侧远小于另一侧时（如 "the" 这样的高频词），对小列表逐个二分查找
+        if (outSize * 16 < inSize) {
+            return probe(targets, outFrom, outTo, sources, inFrom, inTo, buffer);
+        }
+        if (inSize * 16 < outSize) {
+            return probe(sources, inFrom, inTo, targets, outFrom, outTo, buffer);
+        }
+        int count = 0;
+        int i = outFrom;
+        int j = inFrom;
+        while (i < outTo && j < inTo) {
+            int a = targets[i];
+            int b = sources[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                buffer[count++] = a;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int probe(int[] small, int smallFrom, int smallTo,
+                             int[] large, int largeFrom, int largeTo, int[] buffer) {
+        int count = 0;
+        int from = largeFrom;
+        for (int i = smallFrom; i < smallTo && from < largeTo; i++) {
+            int index = Arrays.binarySearch(large, from, largeTo, small[i]);
+            if (index >= 0) {
+                buffer[count++] = small[i];
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+
+// Dial 桶队列：边权是不超过 maxWeight 的非负整数时，待处理节点的距离都落在 [当前最小值, 当前最小值 + maxWeight] 内
+// 用 maxWeight + 1 个循环桶按距离存放节点，插入和减小距离都是 O(1)，弹出的均摊代价与边权上界成正比
+// 桶内是按节点 id 串起来的双向链表，队列中的每个节点只出现一次，运行过程中不分配任何对象
+public class BucketQueue {
+    private final int[] heads;
+    private final int[] next;
+    private final int[] previous;
+    // 节点所在的桶，-1 表示不在队列中
+    private final int[] bucket;
+    private int size;
+    // 最近一次弹出的距离，clear 之后为 -1，由第一次插入的距离确定
+    private int current = -1;
+
+    public BucketQueue(int nodeCount, int maxWeight) {
+        this.heads = new int[Math.max(1, maxWeight) + 1];
+        this.next = new int[nodeCount];
+        this.previous = new int[nodeCount];
+        this.bucket = new int[nodeCount];
+        Arrays.fill(heads, -1);
+        Arrays.fill(bucket, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int node) {
+        return bucket[node] >= 0;
+    }
+
+    // 插入节点，或把已在队列中的节点的距离减小为 key
+    // key 不得小于最近一次弹出的距离，也不得超过它加上 maxWeight（队列为空时同样如此）
+    public void offer(int node, int key) {
+        if (bucket[node] >= 0) {
+            unlink(node);
+        } else {
+            size++;
+        }
+        if (current < 0) {
+            current = key;
+        }
+        int b = key % heads.length;
+        bucket[node] = b;
+        previous[node] = -1;
+        next[node] = heads[b];
+        if (heads[b] >= 0) {
+            previous[heads[b]] = node;
+        }
+        heads[b] = node;
+    }
+
+    // 弹出距离最小的节点
+    public int poll() {
+        while (heads[current % heads.length] < 0) {
+            current++;
+        }
+        int node = heads[current % heads.length];
+        unlink(node);
+        bucket[node] = -1;
+        size--;
+        return node;
+    }
+
+    // 清空队列，代价只与桶数和剩余节点数有关
+    public void clear() {
+        for (int b = 0; b < heads.length && size > 0; b++) {
+            for (int node = heads[b]; node >= 0; node = next[node]) {
+                bucket[node] = -1;
+                size--;
+            }
+            heads[b] = -1;
+        }
+        current = -1;
+    }
+
+    private void unlink(int node) {
+        int b = bucket[node];
+        if (previous[node] >= 0) {
+            next[previous[node]] = next[node];
+        } else {
+            heads[b] = next[node];
+        }
+        if (next[node] >= 0) {
+            previous[next[node]] = previous[node];
+        }
+    }
+}
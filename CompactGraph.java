@@ -0,0 +1,314 @@
+import java.util.*;
+
+// 冻结后的只读图：单词驻留为整数 id，边以压缩稀疏行（CSR）数组存放
+// 第 u 个节点的出边为 targets/weights 中 [offsets[u], offsets[u + 1]) 区间，目标按 id 升序排列
+// 同时保存转置后的入边 inOffsets/inSources/inWeights，来源同样按 id 升序排列
+public final class CompactGraph {
+    private final Vocabulary vocabulary;
+    private final int nodeCount;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final int maxWeight;
+    private Map<String, Map<String, Integer>> mapView;
+
+    CompactGraph(Vocabulary vocabulary, int nodeCount, int[] offsets, int[] targets, int[] weights) {
+        this.vocabulary = vocabulary;
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+
+        // 计数排序转置出边；按来源 id 升序遍历，因此每个节点的入边来源天然有序
+        inOffsets = new int[nodeCount + 1];
+        inSources = new int[targets.length];
+        inWeights = new int[targets.length];
+        for (int target : targets) {
+            inOffsets[target + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] next = Arrays.copyOf(inOffsets, nodeCount);
+        int max = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int index = next[targets[e]]++;
+                inSources[index] = u;
+                inWeights[index] = weights[e];
+                max = Math.max(max, weights[e]);
+            }
+        }
+        maxWeight = max;
+    }
+
+    // 由边表构建 CSR，边的键为 (source << 32) | target
+    static CompactGraph build(Vocabulary vocabulary, LongIntHashMap edges) {
+        return build(vocabulary, edges, null);
+    }
+
+    // edgeIndex 不为 null 时（长度不小于边表大小）写入每条边在边表中的插入下标，供 extend 使用
+    static CompactGraph build(Vocabulary vocabulary, LongIntHashMap edges, int[] edgeIndex) {
+        int nodeCount = vocabulary.size();
+        int edgeCount = edges.size();
+        long[] keys = new long[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            keys[i] = edges.keyAt(i);
+        }
+        Arrays.sort(keys);
+
+        int[] offsets = new int[nodeCount + 1];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            long key = keys[i];
+            int index = edges.indexOf(key);
+            offsets[(int) (key >>> 32) + 1]++;
+            targets[i] = (int) key;
+            weights[i] = edges.valueAt(index);
+            if (edgeIndex != null) {
+                edgeIndex[i] = index;
+            }
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        return new CompactGraph(vocabulary, nodeCount, offsets, targets, weights);
+    }
+
+    // 在旧快照 base 上加入边表中之后新增的边，结果与 build 相同：旧的边按插入下标取最新的边权，
+    // 新增的 k 条边排序后逐行归并进去，代价为 O(V + E + k log k)，不再对全部边排序和查哈希表
+    // 边表只增不删，base 的边恰好是边表按插入顺序的前 base.edgeCount() 条，baseIndex 为 base 每条边的插入下标
+    static CompactGraph extend(CompactGraph base, int[] baseIndex, Vocabulary vocabulary, LongIntHashMap edges,
+                               int[] edgeIndex) {
+        int nodeCount = vocabulary.size();
+        int edgeCount = edges.size();
+        int oldEdges = base.edgeCount();
+        long[] added = new long[edgeCount - oldEdges];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = edges.keyAt(oldEdges + i);
+        }
+        Arrays.sort(added);
+
+        int[] offsets = new int[nodeCount + 1];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        int count = 0;
+        int next = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            int e = u < base.nodeCount ? base.offsets[u] : 0;
+            int end = u < base.nodeCount ? base.offsets[u + 1] : 0;
+            int addedEnd = next;
+            while (addedEnd < added.length && (int) (added[addedEnd] >>> 32) == u) {
+                addedEnd++;
+            }
+            // 旧边和新边的目标各自升序且互不相同，按目标归并
+            while (e < end || next < addedEnd) {
+                int index;
+                if (next == addedEnd || e < end && base.targets[e] < (int) added[next]) {
+                    index = baseIndex[e];
+                    targets[count] = base.targets[e++];
+                } else {
+                    index = edges.indexOf(added[next]);
+                    targets[count] = (int) added[next++];
+                }
+                weights[count] = edges.valueAt(index);
+                edgeIndex[count++] = index;
+            }
+            offsets[u + 1] = count;
+        }
+        return new CompactGraph(vocabulary, nodeCount, offsets, targets, weights);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    // 查询单词的 id，不在图中时返回 -1
+    public int id(String word) {
+        int id = vocabulary.id(word);
+        return id < nodeCount ? id : -1;
+    }
+
+    public String word(int id) {
+        return vocabulary.word(id);
+    }
+
+    public int outDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    // 所有边权中的最大值，没有边时为 0
+    public int maxWeight() {
+        return maxWeight;
+    }
+
+    // 返回边 source -> target 的权重，不存在时返回 0
+    public int weight(int source, int target) {
+        int index = Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target);
+        return index >= 0 ? weights[index] : 0;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    // 以下数组直接暴露给图算法使用，调用方不得修改
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    public int[] getTargets() {
+        return targets;
+    }
+
+    public int[] getWeights() {
+        return weights;
+    }
+
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    public int[] getInSources() {
+        return inSources;
+    }
+
+    public int[] getInWeights() {
+        return inWeights;
+    }
+
+    // 以 Map 形式提供只读视图，兼容原有的 getGraph() 调用方
+    public Map<String, Map<String, Integer>> asMap() {
+        if (mapView == null) {
+            mapView = new GraphView();
+        }
+        return mapView;
+    }
+
+    private final class GraphView extends AbstractMap<String, Map<String, Integer>> {
+        @Override
+        public int size() {
+            return nodeCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && id((String) key) >= 0;
+        }
+
+        @Override
+        public Map<String, Integer> get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int id = id((String) key);
+            return id < 0 ? null : new RowView(id);
+        }
+
+        @Override
+        public Set<Entry<String, Map<String, Integer>>> entrySet() {
+            return new AbstractSet<Entry<String, Map<String, Integer>>>() {
+                @Override
+                public int size() {
+                    return nodeCount;
+                }
+
+                @Override
+                public Iterator<Entry<String, Map<String, Integer>>> iterator() {
+                    return new Iterator<Entry<String, Map<String, Integer>>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < nodeCount;
+                        }
+
+                        @Override
+                        public Entry<String, Map<String, Integer>> next() {
+                            if (next >= nodeCount) {
+                                throw new NoSuchElementException();
+                            }
+                            int id = next++;
+                            return new SimpleImmutableEntry<>(word(id), new RowView(id));
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    // 单个节点出边的只读视图
+    private final class RowView extends AbstractMap<String, Integer> {
+        private final int source;
+
+        RowView(int source) {
+            this.source = source;
+        }
+
+        @Override
+        public int size() {
+            return outDegree(source);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int target = id((String) key);
+            if (target < 0) {
+                return null;
+            }
+            int index = Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target);
+            return index >= 0 ? weights[index] : null;
+        }
+
+        @Override
+        public Set<Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Entry<String, Integer>>() {
+                @Override
+                public int size() {
+                    return outDegree(source);
+                }
+
+                @Override
+                public Iterator<Entry<String, Integer>> iterator() {
+                    return new Iterator<Entry<String, Integer>>() {
+                        private int next = offsets[source];
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < offsets[source + 1];
+                        }
+
+                        @Override
+                        public Entry<String, Integer> next() {
+                            if (next >= offsets[source + 1]) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = next++;
+                            return new SimpleImmutableEntry<>(word(targets[index]), weights[index]);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 语料统计：按单词 id 记录全语料词频、文档频率以及每个文档的词频向量
+// 每读入一个文档只更新该文档出现过的单词，IDF 在查询时由文档频率直接算出，查询为 O(1)
+public class CorpusStatistics {
+    private int[] termCounts = new int[16];
+    private int[] documentFrequency = new int[16];
+    // 单词最近一次出现的文档编号 + 1，用来判断是否为本文档中第一次出现
+    private int[] lastDocument = new int[16];
+    private long totalTerms;
+    private int documentCount;
+
+    // 当前文档中出现过的单词及其词频
+    private int[] currentCounts = new int[16];
+    private int[] touched = new int[16];
+    private int touchedCount;
+    private boolean inDocument;
+
+    // 每个文档的稀疏词频向量，单词 id 升序排列
+    private final boolean retainDocumentVectors;
+    private final List<int[]> documentTerms = new ArrayList<>();
+    private final List<int[]> documentTermCounts = new ArrayList<>();
+
+    public CorpusStatistics() {
+        this(true);
+    }
+
+    // retainDocumentVectors 为 false 时不保存每个文档的词频向量，只维护全局统计
+    public CorpusStatistics(boolean retainDocumentVectors) {
+        this.retainDocumentVectors = retainDocumentVectors;
+    }
+
+    public void beginDocument() {
+        if (inDocument) {
+            endDocument();
+        }
+        documentCount++;
+        inDocument = true;
+    }
+
+    public void addTerm(int id) {
+        addTerm(id, 1);
+    }
+
+    public void addTerm(int id, int count) {
+        if (!inDocument) {
+            beginDocument();
+        }
+        ensureCapacity(id);
+        termCounts[id] += count;
+        totalTerms += count;
+        if (lastDocument[id] != documentCount) {
+            lastDocument[id] = documentCount;
+            documentFrequency[id]++;
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = id;
+        }
+        currentCounts[id] += count;
+    }
+
+    // 结束当前文档，保存其词频向量并清空临时计数，只涉及本文档出现过的单词
+    public void endDocument() {
+        if (!inDocument) {
+            return;
+        }
+        inDocument = false;
+        int[] terms = Arrays.copyOf(touched, touchedCount);
+        Arrays.sort(terms);
+        int[] counts = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            counts[i] = currentCounts[terms[i]];
+            currentCounts[terms[i]] = 0;
+        }
+        touchedCount = 0;
+        if (retainDocumentVectors) {
+            documentTerms.add(terms);
+            documentTermCounts.add(counts);
+        }
+    }
+
+    public int termCount(int id) {
+        return id < termCounts.length ? termCounts[id] : 0;
+    }
+
+    public long totalTerms() {
+        return totalTerms;
+    }
+
+    public int documentCount() {
+        return documentCount;
+    }
+
+    public int documentFrequency(int id) {
+        return id < documentFrequency.length ? documentFrequency[id] : 0;
+    }
+
+    // 单词在第 document 个文档中的词频，未保存文档向量时返回 -1
+    public int documentTermCount(int document, int id) {
+        if (!retainDocumentVectors) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(documentTerms.get(document), id);
+        return index >= 0 ? documentTermCounts.get(document)[index] : 0;
+    }
+
+    public double termFrequency(int id) {
+        return totalTerms == 0 ? 0.0 : (double) termCount(id) / totalTerms;
+    }
+
+    // 平滑的 IDF：ln((1 + N) / (1 + df)) + 1，只有一个文档时为 1，TF-IDF 退化为原来的词频
+    public double inverseDocumentFrequency(int id) {
+        return Math.log((1.0 + documentCount) / (1.0 + documentFrequency(id))) + 1.0;
+    }
+
+    public double tfidf(int id) {
+        return termFrequency(id) * inverseDocumentFrequency(id);
+    }
+
+    // 从磁盘图恢复统计信息，不包含每个文档的词频向量
+    static CorpusStatistics restore(int[] termCounts, int[] documentFrequency, long totalTerms, int documentCount) {
+        CorpusStatistics statistics = new CorpusStatistics(false);
+        statistics.ensureCapacity(termCounts.length - 1);
+        System.arraycopy(termCounts, 0, statistics.termCounts, 0, termCounts.length);
+        System.arraycopy(documentFrequency, 0, statistics.documentFrequency, 0, documentFrequency.length);
+        statistics.totalTerms = totalTerms;
+        statistics.documentCount = documentCount;
+        return statistics;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < termCounts.length) {
+            return;
+        }
+        int capacity = Math.max(id + 1, termCounts.length * 2);
+        termCounts = Arrays.copyOf(termCounts, capacity);
+        documentFrequency = Arrays.copyOf(documentFrequency, capacity);
+        lastDocument = Arrays.copyOf(lastDocument, capacity);
+        currentCounts = Arrays.copyOf(currentCounts, capacity);
+    }
+}
@@ -0,0 +1,236 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// 外存构建：语料大于堆内存时使用
+// 文本流式读入，相邻单词对 (source, target) 暂存在固定大小的缓冲区里，
+// 缓冲区满了就排序、合并相同的边后写成有序的 run 文件，最后多路归并得到最终边权并写出磁盘图
+// 归并时同时打开的 run 数和读缓冲区也按 memoryBudget 确定，run 过多时分多趟归并
+// 堆内存峰值由 memoryBudget 决定，与输入大小无关（词表和词频仍常驻内存，其大小只与不同单词数有关）
+public class ExternalGraphBuilder implements WordTokenizer.WordSink {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // 归并时每个 run 的读缓冲区大小范围，以及一趟最多同时归并的 run 数
+    private static final int MIN_MERGE_BUFFER = 1 << 13;
+    private static final int MAX_MERGE_BUFFER = 1 << 20;
+    private static final int MAX_FAN_IN = 64;
+
+    private final Path workDirectory;
+    // writeGraph 之后为 null
+    private long[] pairs;
+    private int pairCount;
+    private final List<Path> runs = new ArrayList<>();
+    private final Vocabulary vocabulary = new Vocabulary();
+    // 外存构建面向超大语料，不保存每个文档的词频向量
+    private final CorpusStatistics statistics = new CorpusStatistics(false);
+    private int previousWord = -1;
+
+    // workDirectory 用于存放临时 run 文件，memoryBudget 为边缓冲区可使用的字节数
+    public ExternalGraphBuilder(Path workDirectory, long memoryBudget) {
+        this.workDirectory = workDirectory;
+        long capacity = Math.min(Integer.MAX_VALUE - 8, memoryBudget / Long.BYTES);
+        this.pairs = new long[(int) Math.max(1024, capacity)];
+    }
+
+    // 追加一个文件，linkPrevious 的含义与 TextGraph.appendFile 相同
+    public void appendFile(String filePath, boolean linkPrevious) throws IOException {
+        checkWritable();
+        File file = new File(filePath);
+        if (!file.exists() || file.isDirectory()) {
+            throw new IllegalArgumentException("文件不存在: " + filePath);
+        }
+        if (!linkPrevious) {
+            previousWord = -1;
+        }
+        statistics.beginDocument();
+        try {
+            WordTokenizer.tokenizeFile(file, this);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        statistics.endDocument();
+    }
+
+    public void append(Reader reader, boolean linkPrevious) throws IOException {
+        checkWritable();
+        if (!linkPrevious) {
+            previousWord = -1;
+        }
+        statistics.beginDocument();
+        try {
+            WordTokenizer.tokenize(reader, this);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        statistics.endDocument();
+    }
+
+    @Override
+    public void accept(char[] buffer, int length) {
+        int current = vocabulary.intern(buffer, 0, length);
+        statistics.addTerm(current);
+        if (previousWord >= 0) {
+            pairs[pairCount++] = TextGraph.edgeKey(previousWord, current);
+            if (pairCount == pairs.length) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        previousWord = current;
+    }
+
+    // 归并所有 run 文件并写出磁盘图，之后可用 GraphFile.read 读入为 TextGraph
+    // 写出后边缓冲区被释放给归并使用，构建器不能再追加文本
+    public void writeGraph(Path output) throws IOException {
+        checkWritable();
+        if (pairCount > 0) {
+            spill();
+        }
+        long budget = (long) pairs.length * Long.BYTES;
+        pairs = null;
+        // 同时打开的 run 数和每个 run 的缓冲区都由内存预算决定，run 太多时分多趟归并
+        int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, budget / MIN_MERGE_BUFFER - 1));
+        int bufferSize = (int) Math.max(MIN_MERGE_BUFFER, Math.min(MAX_MERGE_BUFFER, budget / (fanIn + 1)));
+        int nodeCount = vocabulary.size();
+        int[] offsets = new int[nodeCount + 1];
+        int[] edgeCount = new int[1];
+        Path edgeFile = Files.createTempFile(workDirectory, "edges", ".bin");
+        try {
+            while (runs.size() > fanIn) {
+                List<Path> group = new ArrayList<>(runs.subList(0, fanIn));
+                Path merged = Files.createTempFile(workDirectory, "run", ".bin");
+                runs.add(merged);
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(merged), bufferSize))) {
+                    merge(group, bufferSize, (key, weight) -> {
+                        out.writeLong(key);
+                        out.writeInt((int) Math.min(Integer.MAX_VALUE, weight));
+                    });
+                }
+                runs.subList(0, fanIn).clear();
+                for (Path run : group) {
+                    Files.deleteIfExists(run);
+                }
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(edgeFile), bufferSize))) {
+                merge(runs, bufferSize, (key, weight) -> {
+                    offsets[(int) (key >>> 32) + 1]++;
+                    out.writeInt((int) key);
+                    out.writeInt((int) Math.min(Integer.MAX_VALUE, weight));
+                    edgeCount[0]++;
+                });
+            }
+            for (int u = 0; u < nodeCount; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            GraphFile.writeWithEdgeFile(output, vocabulary, statistics, offsets, edgeCount[0], previousWord, edgeFile);
+        } finally {
+            Files.deleteIfExists(edgeFile);
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+    }
+
+    // 接收归并后的一条边及其总权重
+    private interface MergeSink {
+        void accept(long key, long weight) throws IOException;
+    }
+
+    // 多路归并一组 run，同一条边可能分布在多个 run 中，累加后按键升序交给 sink
+    private static void merge(List<Path> group, int bufferSize, MergeSink sink) throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> Long.compare(a.key, b.key));
+            for (Path run : group) {
+                RunReader reader = new RunReader(run, bufferSize);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader head = queue.poll();
+                long key = head.key;
+                long weight = head.count;
+                if (head.next()) {
+                    queue.add(head);
+                }
+                while (!queue.isEmpty() && queue.peek().key == key) {
+                    RunReader same = queue.poll();
+                    weight += same.count;
+                    if (same.next()) {
+                        queue.add(same);
+                    }
+                }
+                sink.accept(key, weight);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private void checkWritable() {
+        if (pairs == null) {
+            throw new IllegalStateException("图已经写出，不能继续追加");
+        }
+    }
+
+    // 排序缓冲区中的边，合并相同的边后写成一个 run 文件，每条记录为 (key, count)
+    private void spill() throws IOException {
+        Arrays.sort(pairs, 0, pairCount);
+        Path run = Files.createTempFile(workDirectory, "run", ".bin");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+            int i = 0;
+            while (i < pairCount) {
+                long key = pairs[i];
+                int count = 0;
+                while (i < pairCount && pairs[i] == key) {
+                    count++;
+                    i++;
+                }
+                out.writeLong(key);
+                out.writeInt(count);
+            }
+        }
+        pairCount = 0;
+    }
+
+    private static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        private long key;
+        private int count;
+
+        RunReader(Path run, int bufferSize) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), bufferSize));
+        }
+
+        // 读取下一条记录，run 结束时返回 false
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            count = in.readInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
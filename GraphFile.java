@@ -0,0 +1,121 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 紧凑的磁盘图格式：
+// 文件头（魔数、版本、节点数、边数、总词数、文档数、最后一个单词），随后依次为单词、词频、文档频率、CSR offsets，
+// 最后是按 (source, target) 排序的边，每条边为 (target, weight) 两个 int
+public class GraphFile {
+    private static final int MAGIC = 0x54475246;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private GraphFile() {
+    }
+
+    // 把内存中的图写入磁盘
+    public static void write(TextGraph graph, Path output) throws IOException {
+        CompactGraph compact = graph.freeze();
+        try (DataOutputStream out = open(output)) {
+            writeHeader(out, compact.getVocabulary(), graph.getStatistics(), compact.getOffsets(), compact.edgeCount(),
+                    graph.previousWord());
+            int[] targets = compact.getTargets();
+            int[] weights = compact.getWeights();
+            for (int e = 0; e < targets.length; e++) {
+                out.writeInt(targets[e]);
+                out.writeInt(weights[e]);
+            }
+        }
+    }
+
+    // 写入边以外的部分，边数据由调用方紧接着写入
+    static void writeHeader(DataOutputStream out, Vocabulary vocabulary, CorpusStatistics statistics,
+                            int[] offsets, int edgeCount, int lastWord) throws IOException {
+        int nodeCount = offsets.length - 1;
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(nodeCount);
+        out.writeInt(edgeCount);
+        out.writeLong(statistics.totalTerms());
+        out.writeInt(statistics.documentCount());
+        out.writeInt(lastWord);
+        for (int id = 0; id < nodeCount; id++) {
+            out.writeUTF(vocabulary.word(id));
+        }
+        for (int id = 0; id < nodeCount; id++) {
+            out.writeInt(statistics.termCount(id));
+        }
+        for (int id = 0; id < nodeCount; id++) {
+            out.writeInt(statistics.documentFrequency(id));
+        }
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+    }
+
+    // 写入文件头后把已经排好序的边文件整体拷贝到末尾
+    static void writeWithEdgeFile(Path output, Vocabulary vocabulary, CorpusStatistics statistics,
+                                  int[] offsets, int edgeCount, int lastWord, Path edgeFile) throws IOException {
+        try (DataOutputStream out = open(output)) {
+            writeHeader(out, vocabulary, statistics, offsets, edgeCount, lastWord);
+        }
+        try (FileChannel target = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             FileChannel source = FileChannel.open(edgeFile, StandardOpenOption.READ)) {
+            long size = source.size();
+            for (long position = 0; position < size; ) {
+                position += source.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    // 读取磁盘图，返回已冻结的 TextGraph，之后仍可继续追加文本
+    public static TextGraph read(Path input) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(input), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("不是有效的图文件: " + input);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("不支持的图文件版本: " + version);
+            }
+            int nodeCount = in.readInt();
+            int edgeCount = in.readInt();
+            long totalTerms = in.readLong();
+            int documentCount = in.readInt();
+            int lastWord = in.readInt();
+            Vocabulary vocabulary = new Vocabulary();
+            for (int id = 0; id < nodeCount; id++) {
+                vocabulary.intern(in.readUTF());
+            }
+            int[] termCounts = new int[nodeCount];
+            for (int id = 0; id < nodeCount; id++) {
+                termCounts[id] = in.readInt();
+            }
+            int[] documentFrequency = new int[nodeCount];
+            for (int id = 0; id < nodeCount; id++) {
+                documentFrequency[id] = in.readInt();
+            }
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i <= nodeCount; i++) {
+                offsets[i] = in.readInt();
+            }
+            int[] targets = new int[edgeCount];
+            int[] weights = new int[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                targets[e] = in.readInt();
+                weights[e] = in.readInt();
+            }
+            CompactGraph compact = new CompactGraph(vocabulary, nodeCount, offsets, targets, weights);
+            CorpusStatistics statistics =
+                    CorpusStatistics.restore(termCounts, documentFrequency, totalTerms, documentCount);
+            return new TextGraph(vocabulary, statistics, compact, lastWord);
+        }
+    }
+
+    private static DataOutputStream open(Path output) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output), BUFFER_SIZE));
+    }
+}
@@ -1,27 +1,185 @@
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
-public class GraphOperations {
+public class GraphOperations implements Closeable {
     private final TextGraph graph;
     private final GraphVisualizer visualizer;
-    private final Map<String, Double> tfidf;
+    private final CorpusStatistics statistics;
+    // 桥接词查询缓存的单词对数量
+    private static final int BRIDGE_CACHE_SIZE = 4096;
+    private BridgeIndex bridgeIndex;
+    private ShortestPathTree shortestPathTree;
+    private BidirectionalSearch bidirectionalSearch;
+    private KShortestPaths kShortestPaths;
+    private boolean bucketQueue;
+    // PageRank 的并行线程池和分块数，线程池为 null 时单线程计算
+    private ForkJoinPool pageRankPool;
+    private int pageRankBlocks;
+    private PageRankEngine.Method pageRankMethod = PageRankEngine.Method.JACOBI;
+    private PageRankEngine.Convergence pageRankConvergence = PageRankEngine.Convergence.MAX_NORM;
+    private double pageRankTolerance = 0.0001;
+    private double dampingFactor = 0.85;
+    private int pageRankMaxIterations = Integer.MAX_VALUE;
+    // 按快照缓存的 PR 计算结果，图变化后 freeze() 返回新的快照，结果随之失效
+    private PageRankEngine.Result pageRank;
+    private CompactGraph pageRankGraph;
+    // 增量维护的 PR 状态，为 null 时每个快照都重新迭代
+    private static final int INCREMENTAL_EDGE_RATIO = 16;
+    private boolean incrementalPageRank;
+    private IncrementalPageRank incremental;
+    private AllPairsShortestPaths allPairs;
+    private RandomWalkEngine randomWalkEngine;
+    private AsyncOutputSink outputSink;
+    // outputSink 是否为本对象取得的默认输出，需要由本对象释放
+    private boolean ownsOutputSink;
+    // 个性化 PageRank 的推送阈值和随机游走误差，误差不为正时只做推送
+    private PersonalizedPageRank personalizedPageRank;
+    private double personalizedPushThreshold = 1e-5;
+    private double personalizedWalkError;
+    // 生成新文本时复用的桥接词候选缓冲区
+    private int[] bridgeBuffer = new int[16];
+    private SplittableRandom random = new SplittableRandom();
+    // 随机游走和插入桥接词时按出现次数加权抽样
+    private boolean weightedSampling = true;
 
     public GraphOperations(TextGraph graph, GraphVisualizer visualizer) {
         this.graph = graph;
         this.visualizer = visualizer;
-        this.tfidf = graph.getTFIDF();
+        this.statistics = graph.getStatistics();
     }
 
-    static class Node {
-        String node;
-        int distance;
+    // 固定随机数种子，使生成文本的结果可复现
+    public void setRandomSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    // 游走路径的输出，由调用方负责关闭；之前使用的默认输出会被释放
+    public void setOutputSink(AsyncOutputSink outputSink) throws IOException {
+        close();
+        this.outputSink = outputSink;
+    }
+
+    // 释放默认的游走路径输出，写完其中的记录；通过 setOutputSink 指定的输出由调用方负责关闭
+    @Override
+    public void close() throws IOException {
+        if (ownsOutputSink) {
+            AsyncOutputSink sink = outputSink;
+            outputSink = null;
+            ownsOutputSink = false;
+            sink.close();
+        }
+    }
+
+    // 为 false 时随机游走和生成新文本恢复为在候选中等概率选取
+    public void setWeightedSampling(boolean weightedSampling) {
+        this.weightedSampling = weightedSampling;
+    }
+
+    // 为 true 时两种最短路径查询都改用 Dial 桶队列，适合边权（二元组计数）都很小的图
+    public void setBucketQueue(boolean bucketQueue) {
+        this.bucketQueue = bucketQueue;
+    }
+
+    // 在 pool 上并行计算 PageRank，节点划分为 blocks 个区间；结果只取决于 blocks，与线程数无关
+    public void setPageRankParallelism(ForkJoinPool pool, int blocks) {
+        if (pool != null && blocks < 1) {
+            throw new IllegalArgumentException("分块数至少为 1: " + blocks);
+        }
+        this.pageRankPool = pool;
+        this.pageRankBlocks = blocks;
+        this.pageRank = null;
+        this.incremental = null;
+    }
+
+    // PageRank 的迭代方法，默认为幂迭代
+    public void setPageRankMethod(PageRankEngine.Method method) {
+        this.pageRankMethod = method;
+        this.pageRank = null;
+        this.incremental = null;
+    }
+
+    // PageRank 的收敛判据和阈值，默认每个节点的变化都不超过 1e-4
+    public void setPageRankConvergence(PageRankEngine.Convergence convergence, double tolerance) {
+        this.pageRankConvergence = convergence;
+        this.pageRankTolerance = tolerance;
+        this.pageRank = null;
+        this.incremental = null;
+    }
+
+    // PageRank 的迭代次数上限，用精度换取延迟
+    public void setPageRankMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("迭代次数上限至少为 1: " + maxIterations);
+        }
+        this.pageRankMaxIterations = maxIterations;
+        this.pageRank = null;
+        this.incremental = null;
+    }
+
+    // 为 true 时图增长后不再重新迭代，而是从上一个快照的结果出发，只在新增边附近做局部推送
+    // 此时 getPageRankResult() 的迭代轮数为推送次数，残差按同一收敛判据计算
+    public void setIncrementalPageRank(boolean incrementalPageRank) {
+        this.incrementalPageRank = incrementalPageRank;
+        this.pageRank = null;
+        this.incremental = null;
+    }
+
+    // 相关单词查询的精度：推送阈值越小越精确；walkError 为正时推送后再用随机游走把每个单词的误差压到它以内
+    public void setPersonalizedPageRankError(double pushThreshold, double walkError) {
+        if (pushThreshold <= 0) {
+            throw new IllegalArgumentException("推送阈值必须为正: " + pushThreshold);
+        }
+        this.personalizedPushThreshold = pushThreshold;
+        this.personalizedWalkError = walkError;
+    }
+
+    public void setDampingFactor(double dampingFactor) {
+        this.dampingFactor = dampingFactor;
+        this.pageRank = null;
+        this.incremental = null;
+    }
 
-        Node(String node, int distance) {
-            this.node = node;
-            this.distance = distance;
+    // 最短路径树的数组按快照复用，图变化或切换队列后重新分配
+    private ShortestPathTree shortestPathTree() {
+        CompactGraph compact = graph.freeze();
+        if (shortestPathTree == null || shortestPathTree.getGraph() != compact
+                || shortestPathTree.usesBucketQueue() != bucketQueue) {
+            shortestPathTree = new ShortestPathTree(compact, bucketQueue);
         }
+        return shortestPathTree;
+    }
+
+    private BidirectionalSearch bidirectionalSearch() {
+        CompactGraph compact = graph.freeze();
+        if (bidirectionalSearch == null || bidirectionalSearch.getGraph() != compact) {
+            bidirectionalSearch = new BidirectionalSearch(compact, graph.getReachability());
+        }
+        return bidirectionalSearch;
+    }
+
+    // 反向最短路径树按终点缓存，对同一终点的多次查询只计算一次
+    private KShortestPaths kShortestPaths() {
+        CompactGraph compact = graph.freeze();
+        if (kShortestPaths == null || kShortestPaths.getGraph() != compact) {
+            kShortestPaths = new KShortestPaths(compact);
+        }
+        return kShortestPaths;
+    }
+
+    // 图发生变化后 freeze() 返回新的快照，此时重建桥接词索引
+    private BridgeIndex bridgeIndex() {
+        CompactGraph compact = graph.freeze();
+        if (bridgeIndex == null || bridgeIndex.getGraph() != compact) {
+            bridgeIndex = new BridgeIndex(compact, BRIDGE_CACHE_SIZE);
+        }
+        return bridgeIndex;
     }
 
     public String queryBridgeWords(String word1, String word2) {
@@ -29,19 +187,20 @@ public class GraphOperations {
         word1 = graph.normalizeWord(word1);
         word2 = graph.normalizeWord(word2);
 
-        if (!graph.getGraph().containsKey(word1) || !graph.getGraph().containsKey(word2)) {
+        BridgeIndex index = bridgeIndex();
+        CompactGraph compact = index.getGraph();
+        int id1 = compact.id(word1);
+        int id2 = compact.id(word2);
+        if (id1 < 0 || id2 < 0) {
             // System.out.printf("No %s or %s in the graph!%n", word1, word2);
             String error = "单词 " + word1 + " 或 " + word2 + " 不在图中";
             return error;
         }
 
+        // 第一个单词的出边邻居与第二个单词的入边邻居求交集
         List<String> bridgeWords = new ArrayList<>();
-        // 遍历第一个单词的所有邻居节点
-        for (String potentialBridge : graph.getGraph().get(word1).keySet()) {
-            // 检查该邻居节点是否有到第二个单词的边
-            if (graph.getGraph().get(potentialBridge) != null && graph.getGraph().get(potentialBridge).containsKey(word2)) {
-                bridgeWords.add(potentialBridge);
-            }
+        for (int bridge : index.bridgeWords(id1, id2)) {
+            bridgeWords.add(compact.word(bridge));
         }
 
         StringBuilder result;
@@ -71,33 +230,32 @@ public class GraphOperations {
         }
     }
 
+    // 使用 GraphOperations 自带的随机数源，可通过 setRandomSeed 固定
     public String generateNewText(String inputText) {
+        return generateNewText(inputText, random);
+    }
+
+    public String generateNewText(String inputText, SplittableRandom random) {
         if (inputText == null || inputText.trim().isEmpty()) {
             return ""; 
         }
     
         String[] words = inputText.split("\\s+");
         StringBuilder newText = new StringBuilder();
-        Random random = new Random();
     
+        BridgeIndex index = bridgeIndex();
+        CompactGraph compact = index.getGraph();
+        // 每个单词只规范化并查询一次 id，作为下一对单词的前一个单词复用
+        int next = compact.id(graph.normalizeWord(words[0]));
         for (int i = 0; i < words.length; i++) {
-            String current = graph.normalizeWord(words[i]);
+            int current = next;
             newText.append(words[i]);
     
             if (i < words.length - 1) {
-                String next = graph.normalizeWord(words[i + 1]);
-                if (graph.getGraph().containsKey(current) && graph.getGraph().containsKey(next)) {
-                    List<String> bridgeWords = new ArrayList<>();
-                    for (String potentialBridge : graph.getGraph().get(current).keySet()) {
-                        if (graph.getGraph().get(potentialBridge) != null && 
-                            graph.getGraph().get(potentialBridge).containsKey(next)) {
-                            bridgeWords.add(potentialBridge);
-                        }
-                    }
-                    if (!bridgeWords.isEmpty()) {
-                        int randomIndex = random.nextInt(bridgeWords.size());
-                        newText.append(" ").append(bridgeWords.get(randomIndex));
-                    }
+                next = compact.id(graph.normalizeWord(words[i + 1]));
+                int bridge = chooseBridge(index, current, next, random);
+                if (bridge >= 0) {
+                    newText.append(" ").append(compact.word(bridge));
                 }
                 newText.append(" ");
             }
@@ -106,19 +264,158 @@ public class GraphOperations {
         return newText.toString().trim(); // 移除末尾多余空格
     }
 
+    // 流式生成新文本：逐行读取 Reader，每行的结果与 generateNewText(String) 相同，逐行写入 Writer
+    // 只保留当前单词和一个桥接词缓冲区，内存占用与输入大小无关；Reader 和 Writer 由调用方关闭
+    public void generateNewText(Reader in, Writer out, SplittableRandom random) throws IOException {
+        NewTextWriter writer = new NewTextWriter(bridgeIndex(), out, random);
+        char[] chars = new char[8192];
+        int count;
+        while ((count = in.read(chars)) != -1) {
+            for (int i = 0; i < count; i++) {
+                writer.accept(chars[i]);
+            }
+        }
+        writer.finish();
+        out.flush();
+    }
+
+    // 流式生成新文本的逐字符状态机
+    private final class NewTextWriter {
+        // 本行还没有单词时 previous 的取值
+        private static final int NO_WORD = -2;
+        private final BridgeIndex index;
+        private final CompactGraph compact;
+        private final Writer out;
+        private final SplittableRandom random;
+        private char[] token = new char[64];
+        private char[] normalized = new char[64];
+        private int tokenLength;
+        private int previous = NO_WORD;
+        private boolean lineOpen;
+        private boolean afterCarriageReturn;
+
+        NewTextWriter(BridgeIndex index, Writer out, SplittableRandom random) {
+            this.index = index;
+            this.compact = index.getGraph();
+            this.out = out;
+            this.random = random;
+        }
+
+        void accept(char c) throws IOException {
+            boolean lineEnd = c == '\n' || c == '\r';
+            if (!lineEnd && !WordTokenizer.isWhitespace(c)) {
+                if (tokenLength == token.length) {
+                    token = Arrays.copyOf(token, tokenLength * 2);
+                    normalized = new char[token.length];
+                }
+                token[tokenLength++] = c;
+                lineOpen = true;
+                afterCarriageReturn = false;
+                return;
+            }
+            flushWord();
+            // \r\n 只算一次换行
+            if (c == '\n' && afterCarriageReturn) {
+                afterCarriageReturn = false;
+                return;
+            }
+            afterCarriageReturn = c == '\r';
+            if (lineEnd) {
+                out.write('\n');
+                previous = NO_WORD;
+                lineOpen = false;
+            } else {
+                lineOpen = true;
+            }
+        }
+
+        void finish() throws IOException {
+            flushWord();
+            if (lineOpen) {
+                out.write('\n');
+            }
+        }
+
+        // 输出当前单词，与本行上一个单词之间有桥接词时一并插入
+        private void flushWord() throws IOException {
+            if (tokenLength == 0) {
+                return;
+            }
+            int length = graph.normalizeWord(CharBuffer.wrap(token, 0, tokenLength), normalized);
+            int current = compact.getVocabulary().id(normalized, 0, length);
+            if (current >= compact.nodeCount()) {
+                current = -1;
+            }
+            if (previous != NO_WORD) {
+                out.write(' ');
+                int bridge = chooseBridge(index, previous, current, random);
+                if (bridge >= 0) {
+                    out.write(compact.word(bridge));
+                    out.write(' ');
+                }
+            }
+            out.write(token, 0, tokenLength);
+            previous = current;
+            tokenLength = 0;
+        }
+    }
+
+    // 随机选取一个桥接词，没有时返回 -1；候选列表写入复用的缓冲区
+    private int chooseBridge(BridgeIndex index, int word1, int word2, SplittableRandom random) {
+        if (word1 < 0 || word2 < 0) {
+            return -1;
+        }
+        CompactGraph compact = index.getGraph();
+        int capacity = Math.min(compact.outDegree(word1), compact.inDegree(word2));
+        if (bridgeBuffer.length < capacity) {
+            bridgeBuffer = new int[Math.max(capacity, bridgeBuffer.length * 2)];
+        }
+        int count = index.bridgeWords(word1, word2, bridgeBuffer);
+        if (count == 0) {
+            return -1;
+        }
+        if (!weightedSampling) {
+            return bridgeBuffer[random.nextInt(count)];
+        }
+        // 候选集合随单词对变化，求交集已经是 O(count)，这里按 w(word1, b) * w(b, word2) 累积抽样一次即可
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += bridgeWeight(compact, word1, bridgeBuffer[i], word2);
+        }
+        long point = random.nextLong(total);
+        for (int i = 0; i < count - 1; i++) {
+            point -= bridgeWeight(compact, word1, bridgeBuffer[i], word2);
+            if (point < 0) {
+                return bridgeBuffer[i];
+            }
+        }
+        return bridgeBuffer[count - 1];
+    }
+
+    // 经过桥接词 bridge 的二元组出现次数之积
+    private static long bridgeWeight(CompactGraph compact, int word1, int bridge, int word2) {
+        return (long) compact.weight(word1, bridge) * compact.weight(bridge, word2);
+    }
+
     public String calcShortestPath(String word1) {
         String startWord = graph.normalizeWord(word1);
         if (!graph.getGraph().containsKey(startWord)) {
             return String.format("No '%s' in the graph!", startWord);
         }
     
+        // 一次单源 Dijkstra 得到到所有节点的距离和前驱，再逐个回溯路径
+        ShortestPathTree tree = shortestPathTree();
+        CompactGraph compact = tree.getGraph();
+        int start = compact.id(startWord);
+        tree.compute(start);
         StringBuilder result = new StringBuilder();
-        for (String endWord : graph.getGraph().keySet()) {
-            if (endWord.equals(startWord)) continue;
+        for (int end = 0; end < compact.nodeCount(); end++) {
+            if (end == start) continue;
+            String endWord = compact.word(end);
             
-            List<String> path = dijkstra(startWord, endWord);
+            List<String> path = tree.path(end);
             if (path != null) {
-                int length = calculatePathLength(path);
+                int length = tree.distance(end);
                 result.append(String.format("从 %s 到 %s: %s (长度: %d)\n",
                           startWord, endWord, String.join(" -> ", path), length));
             } else {
@@ -139,184 +436,266 @@ public class GraphOperations {
             return String.format("'%s' 不在图中\n", endWord);
         }
     
-        List<String> path = dijkstra(startWord, endWord);
+        CompactGraph compact = graph.freeze();
+        int start = compact.id(startWord);
+        int end = compact.id(endWord);
+        List<String> path;
+        int length;
+        // 可达性索引能 O(1) 判定的不可达单词对不需要搜索；已经预计算过当前快照的全源最短路径时直接查表
+        if (!graph.getReachability().mayReach(start, end)) {
+            path = null;
+            length = ShortestPathTree.UNREACHABLE;
+        } else if (allPairs != null && allPairs.getGraph() == compact) {
+            path = allPairs.path(start, end);
+            length = allPairs.distance(start, end);
+        } else if (bucketQueue) {
+            ShortestPathTree tree = shortestPathTree();
+            tree.compute(start, end);
+            path = tree.path(end);
+            length = tree.distance(end);
+        } else {
+            BidirectionalSearch search = bidirectionalSearch();
+            length = search.search(start, end);
+            path = search.path();
+        }
         if (path == null) {
             return String.format("%s 到 %s 没有路径\n", startWord, endWord);
         }
         
-        int length = calculatePathLength(path);
         return String.format("Shortest path: %s (Length: %d)", 
                 String.join(" -> ", path), length);
     }
 
-    private int calculatePathLength(List<String> path) {
-        int length = 0;
-        for (int i = 0; i < path.size() - 1; i++) {
-            String source = path.get(i);
-            String target = path.get(i + 1);
-            // 检查是否存在从 source 到 target 的边
-            Map<String, Integer> neighbors = graph.getGraph().get(source);
-            if (neighbors != null && neighbors.containsKey(target)) {
-                length += neighbors.get(target);
+    // 前 k 条最短的无环路径，每行一条，长度相同的路径按确定的顺序排列
+    public String calcKShortestPaths(String word1, String word2, int k) {
+        String startWord = graph.normalizeWord(word1);
+        String endWord = graph.normalizeWord(word2);
+
+        if (!graph.getGraph().containsKey(startWord)) {
+            return String.format("'%s' 不在图中\n", startWord);
+        }
+        if (!graph.getGraph().containsKey(endWord)) {
+            return String.format("'%s' 不在图中\n", endWord);
+        }
+
+        CompactGraph compact = graph.freeze();
+        int start = compact.id(startWord);
+        int end = compact.id(endWord);
+        List<KShortestPaths.Path> paths = graph.getReachability().mayReach(start, end)
+                ? kShortestPaths().compute(start, end, k)
+                : Collections.emptyList();
+        if (paths.isEmpty()) {
+            return String.format("%s 到 %s 没有路径\n", startWord, endWord);
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < paths.size(); i++) {
+            KShortestPaths.Path path = paths.get(i);
+            StringJoiner words = new StringJoiner(" -> ");
+            for (int node : path.nodes()) {
+                words.add(compact.word(node));
             }
+            result.append(String.format("第 %d 条: %s (长度: %d)\n", i + 1, words, path.length()));
         }
-        return length;
+        return result.toString().trim();
+    }
+
+    // 并行预计算所有单词对之间的最短路径，directory 为 null 时结果保存在堆内存中，否则写入该目录下的映射文件
+    // 之后对同一个图快照的两点查询直接查表；图发生变化后需要重新预计算
+    public AllPairsShortestPaths precomputeAllPairs(ForkJoinPool pool, Path directory) throws IOException {
+        CompactGraph compact = graph.freeze();
+        allPairs = directory == null
+                ? AllPairsShortestPaths.compute(compact, pool)
+                : AllPairsShortestPaths.compute(compact, pool, directory);
+        return allPairs;
     }
 
-    private List<String> dijkstra(String start, String end) {
-        // 存储每个节点到起始节点的最短距离
-        Map<String, Integer> distance = new HashMap<>();
-        // 存储每个节点的前一个节点
-        Map<String, String> previous = new HashMap<>();
-        // 优先队列，用于存储待处理的节点
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(n -> n.distance));
+    public Double calPageRank(String word) {
+        // 参数预处理和验证
+        String normalizedWord = graph.normalizeWord(word);
+        if (!graph.getGraph().containsKey(normalizedWord)) {
+            return null; 
+        }
+    
+        // 返回指定单词的PageRank值
+        return pageRankVector()[graph.freeze().id(normalizedWord)];
+    }
 
-        // 初始化所有节点的距离为无穷大，前一个节点为 null
-        for (String node : graph.getGraph().keySet()) {
-            distance.put(node, Integer.MAX_VALUE);
-            previous.put(node, null);
+    // 批量查询，结果按参数顺序排列，不在图中的单词对应 null
+    public Map<String, Double> calPageRanks(Collection<String> words) {
+        double[] ranks = pageRankVector();
+        CompactGraph compact = graph.freeze();
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String word : words) {
+            int id = compact.id(graph.normalizeWord(word));
+            result.put(word, id >= 0 ? ranks[id] : null);
         }
-        distance.put(start, 0);
-        queue.add(new Node(start, 0));
+        return result;
+    }
 
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
-            String currentNode = current.node;
+    // 导出完整的 PR 向量，按 graph.freeze() 快照中的单词 id 索引
+    public double[] exportPageRank() {
+        return pageRankVector().clone();
+    }
 
-            if (currentNode.equals(end)) {
-                break;
-            }
+    // PR 值最高的 k 个单词，按 PR 值降序排列，相同时按单词 id 升序
+    // 用大小为 k 的最小堆做部分排序，代价为 O(V log k)
+    public List<Map.Entry<String, Double>> topPageRank(int k) {
+        double[] ranks = pageRankVector();
+        CompactGraph compact = graph.freeze();
+        List<Map.Entry<String, Double>> result = new ArrayList<>();
+        for (int node : TopK.top(ranks, null, ranks.length, k)) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(compact.word(node), ranks[node]));
+        }
+        return result;
+    }
 
-            if (current.distance > distance.get(currentNode)) {
-                continue;
-            }
+    // 与 word 最相关的 k 个单词：以 word 为种子的个性化 PageRank 得分最高者，包括 word 本身
+    // 代价只与种子附近被推送到的节点有关，与全图规模无关；word 不在图中时返回空列表
+    public List<Map.Entry<String, Double>> relatedWords(String word, int k) {
+        return relatedWords(Collections.singletonMap(word, 1.0), k);
+    }
 
-             // 遍历当前节点的所有邻居节点
-            for (Map.Entry<String, Integer> neighborEntry : graph.getGraph().get(currentNode).entrySet()) {
-                String neighbor = neighborEntry.getKey();
-                int weight = neighborEntry.getValue();
-                int newDistance = distance.get(currentNode) + weight;
-
-                // 如果新的距离小于已记录的最短距离，更新距离和前一个节点
-                if (newDistance < distance.get(neighbor)) {
-                    distance.put(neighbor, newDistance);
-                    previous.put(neighbor, currentNode);
-                    queue.add(new Node(neighbor, newDistance));
-                }
+    // 以加权的单词集合为种子，不在图中的单词被忽略
+    public List<Map.Entry<String, Double>> relatedWords(Map<String, Double> seedWeights, int k) {
+        CompactGraph compact = graph.freeze();
+        int[] seeds = new int[seedWeights.size()];
+        double[] weights = new double[seedWeights.size()];
+        int count = 0;
+        for (Map.Entry<String, Double> entry : seedWeights.entrySet()) {
+            int id = compact.id(graph.normalizeWord(entry.getKey()));
+            if (id >= 0) {
+                seeds[count] = id;
+                weights[count++] = entry.getValue();
             }
         }
-
-        if (previous.get(end) == null) {
-            return null;
+        List<Map.Entry<String, Double>> result = new ArrayList<>();
+        if (count == 0 || k <= 0) {
+            return result;
         }
+        PersonalizedPageRank ppr = personalizedPageRank();
+        ppr.setDampingFactor(dampingFactor);
+        ppr.setPushThreshold(personalizedPushThreshold);
+        ppr.setMonteCarlo(personalizedWalkError, 0.01);
+        ppr.setRandom(random);
+        PersonalizedPageRank.Result scores = ppr.compute(Arrays.copyOf(seeds, count), Arrays.copyOf(weights, count));
+        for (int i : scores.top(k)) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(compact.word(scores.node(i)), scores.score(i)));
+        }
+        return result;
+    }
 
-        List<String> path = new ArrayList<>();
-        for (String at = end; at != null; at = previous.get(at)) {
-            path.add(at);
+    // 个性化 PageRank 的状态数组按快照复用
+    private PersonalizedPageRank personalizedPageRank() {
+        CompactGraph compact = graph.freeze();
+        if (personalizedPageRank == null || personalizedPageRank.getGraph() != compact) {
+            personalizedPageRank = new PersonalizedPageRank(compact);
         }
-        Collections.reverse(path);
-        return path;
+        return personalizedPageRank;
     }
 
-    public Double calPageRank(String word) {
-        // 参数预处理和验证
-        String normalizedWord = graph.normalizeWord(word);
-        if (!graph.getGraph().containsKey(normalizedWord)) {
-            return null; 
+    // 当前快照的 PR 计算结果，包含迭代轮数和最终残差
+    public PageRankEngine.Result getPageRankResult() {
+        pageRankVector();
+        return pageRank;
+    }
+
+    // 当前快照的 PR 向量，每个快照只迭代一次
+    private double[] pageRankVector() {
+        CompactGraph compact = graph.freeze();
+        if (pageRank != null && pageRankGraph == compact) {
+            return pageRank.ranks();
         }
-    
-        // 保留原PageRank计算逻辑
-        Map<String, Double> pageRank = new HashMap<>();
-        int numNodes = graph.getGraph().size();
-        double dampingFactor = 0.85;
-        double tolerance = 0.0001;
+        // 新增的边相对全图较少时局部推送更快，否则重新迭代
+        if (incremental != null) {
+            long[] added = graph.edgesSince(incremental.getGraph());
+            if (added.length <= compact.edgeCount() / INCREMENTAL_EDGE_RATIO) {
+                incremental.update(compact, added);
+                pageRank = incrementalResult(incremental.lastPushes());
+                pageRankGraph = compact;
+                return pageRank.ranks();
+            }
+        }
+        int numNodes = compact.nodeCount();
         double initialPR = 1.0 / numNodes;
+        double[] initial = new double[numNodes];
     
-        // 初始化（使用TF-IDF值）
-        for (String node : graph.getGraph().keySet()) {
-            pageRank.put(node, tfidf.getOrDefault(node, initialPR));
+        // 初始化（使用TF-IDF值，按 id 直接查询语料统计）
+        for (int node = 0; node < numNodes; node++) {
+            initial[node] = statistics.termCount(node) > 0 ? statistics.tfidf(node) : initialPR;
         }
     
-        // 迭代计算
-        boolean converged;
-        do {
-            converged = true;
-            Map<String, Double> newPageRank = new HashMap<>();
-            double danglingSum = pageRank.entrySet().stream()
-                .filter(e -> graph.getGraph().get(e.getKey()).isEmpty())
-                .mapToDouble(Map.Entry::getValue)
-                .sum();
-    
-            for (String node : graph.getGraph().keySet()) {
-                double sum = 0.0;
-                // 计算来自其他节点的贡献
-                for (Map.Entry<String, Map<String, Integer>> entry : graph.getGraph().entrySet()) {
-                    String source = entry.getKey();
-                    if (entry.getValue().containsKey(node)) {
-                        int outDegree = entry.getValue().size();
-                        sum += pageRank.get(source) / outDegree;
-                    }
-                }
-                // 处理悬挂节点
-                sum += dampingFactor * danglingSum / numNodes;
-                
-                // 计算新PageRank值
-                double newPR = (1 - dampingFactor)/numNodes + dampingFactor * sum;
-                newPageRank.put(node, newPR);
-                
-                // 检查收敛
-                if (Math.abs(newPR - pageRank.get(node)) > tolerance) {
-                    converged = false;
-                }
-            }
-            pageRank = newPageRank;
-        } while (!converged);
-    
-        // 返回指定单词的PageRank值
-        return pageRank.get(normalizedWord);
+        // 沿入边索引迭代计算，默认的悬挂节点处理和收敛判据与原有算法相同
+        PageRankEngine engine = new PageRankEngine(compact);
+        engine.setParallelism(pageRankPool, pageRankBlocks);
+        engine.setMethod(pageRankMethod);
+        engine.setConvergence(pageRankConvergence);
+        engine.setTolerance(pageRankTolerance);
+        engine.setDampingFactor(dampingFactor);
+        engine.setMaxIterations(pageRankMaxIterations);
+        pageRank = engine.solve(initial);
+        pageRankGraph = compact;
+        if (incrementalPageRank) {
+            incremental = new IncrementalPageRank(compact, pageRank.ranks(), dampingFactor,
+                    PageRankEngine.DanglingPolicy.DAMPED_UNIFORM, pageRankConvergence, pageRankTolerance);
+            pageRank = incrementalResult(pageRank.iterations());
+        }
+        return pageRank.ranks();
+    }
+
+    // 增量状态的数组在下次更新时会被原地修改，结果中保存一份副本
+    private PageRankEngine.Result incrementalResult(long iterations) {
+        double residual = incremental.residual();
+        return new PageRankEngine.Result(incremental.ranks().clone(), (int) Math.min(Integer.MAX_VALUE, iterations),
+                residual, residual <= pageRankTolerance);
     }
 
+    // 游走路径交给后台线程写出，每条一行；查询线程不等待磁盘，关闭或更换输出时才写完
     private void writeVisitedNodesToFile(List<String> visitedNodes) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("F:\\作业\\7.大三春\\软件工程\\实验1\\code\\helloworld\\src\\random_walk_path.txt"))) {
-            writer.write(String.join(" ", visitedNodes));
-            System.out.println("遍历路径已保存到 random_walk_path.txt 文件中。");
+        try {
+            AsyncOutputSink sink = outputSink();
+            sink.write(String.join(" ", visitedNodes));
+            System.out.println("遍历路径已加入 " + sink.currentFile().getFileName() + " 的写出队列。");
         } catch (IOException e) {
             System.err.println("写入文件时出错: " + e.getMessage());
         }
     }
 
-    public String randomWalk(TextGraph graph) {
-        Random random = new Random();
-        List<String> visitedNodes = new ArrayList<>();
-        Set<String> visitedEdges = new HashSet<>();
+    // 没有指定输出时写到当前目录下的 random_walk_path.txt，与同一文件上的其他输出共用一个实例
+    private AsyncOutputSink outputSink() throws IOException {
+        if (outputSink == null) {
+            outputSink = AsyncOutputSink.shared(Paths.get("random_walk_path.txt"));
+            ownsOutputSink = true;
+        }
+        return outputSink;
+    }
 
-        List<String> nodes = new ArrayList<>(graph.getGraph().keySet());
-        if (nodes.isEmpty()) {
+    public String randomWalk(TextGraph graph) {
+        CompactGraph compact = graph.freeze();
+        int[] path = randomWalkEngine(compact).walk(random);
+        List<String> visitedNodes = new ArrayList<>(path.length);
+        for (int node : path) {
+            visitedNodes.add(compact.word(node));
+        }
+        if (visitedNodes.isEmpty()) {
             return ""; // 处理空图情况
         }
-        String currentNode = nodes.get(random.nextInt(nodes.size()));
-        visitedNodes.add(currentNode);
-    
-        while (true) {
-            Map<String, Integer> neighbors = graph.getGraph().get(currentNode);
-            if (neighbors == null || neighbors.isEmpty()) {
-                break;
-            }
+        writeVisitedNodesToFile(visitedNodes);
+        return String.join(" -> ", visitedNodes);
+    }
 
-            List<String> neighborList = new ArrayList<>(neighbors.keySet());
-            String nextNode = neighborList.get(random.nextInt(neighborList.size()));
-            String edge = currentNode + " -> " + nextNode;
+    // 用于生成游走语料：并行执行 count 条与 randomWalk 停止规则相同的游走，结果依次交给 sink
+    // 每条游走的内容只取决于 seed，pool 为 null 时在当前线程执行
+    public void randomWalks(long count, long seed, ForkJoinPool pool, RandomWalkEngine.Sink sink) {
+        randomWalkEngine(graph.freeze()).run(count, seed, pool, sink);
+    }
 
-            if (visitedEdges.contains(edge)) {
-                break;
-            }
-            
-            // 记录路径
-            visitedEdges.add(edge);
-            visitedNodes.add(nextNode);
-            currentNode = nextNode;
+    // 游走引擎的状态和别名表按快照复用
+    private RandomWalkEngine randomWalkEngine(CompactGraph compact) {
+        if (randomWalkEngine == null || randomWalkEngine.getGraph() != compact
+                || randomWalkEngine.isWeighted() != weightedSampling) {
+            randomWalkEngine = new RandomWalkEngine(compact, weightedSampling);
         }
-        writeVisitedNodesToFile(visitedNodes);
-        return String.join(" -> ", visitedNodes);
+        return randomWalkEngine;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,336 @@
+import java.util.Arrays;
+
+// 增量 PageRank：保存 PR 向量 x 和每个节点的残差 r = c + d * Σ x[u] / out[u] + δ * D - x，
+// 其中 c = (1 - d) / N 为随机跳转，D 为悬挂节点的 PR 之和，δ 为悬挂节点分给每个节点的系数
+// 图增长后只修正新增边的来源节点的邻居的残差，再用局部推送（Gauss-Southwell）把残差压到阈值以下，
+// 推送的代价与受影响的邻域成正比。N 或 D 变化带来的对所有节点都相同的残差单独记在一个标量中，
+// 只有它累积到影响收敛判据时才整体缩放一次 PR 向量把它消掉（O(V)），新增单词不会引起全图推送
+// 调用方每次还要取得新的快照（TextGraph.freeze 在旧快照上归并新增的边，O(V + E) 的数组拷贝）；
+// L1 判据的阈值很小时，新单词的影响要推送到大半个图才能压到阈值以下，此时并不比重新迭代快
+// 残差恰好是幂迭代下一轮的变化量，因此与 PageRankEngine 使用同一个收敛判据和阈值，精度与完整迭代相当
+// PageRank 只看出度不看边权，已有边的权重增加不影响结果
+public class IncrementalPageRank {
+    private CompactGraph graph;
+    private final double dampingFactor;
+    private final PageRankEngine.DanglingPolicy danglingPolicy;
+    private final PageRankEngine.Convergence convergence;
+    private final double tolerance;
+    private double[] rank;
+    private double[] residual;
+    // 所有节点共有的残差
+    private double uniformResidual;
+    private double danglingSum;
+    private double residualSum;
+    // 待推送的节点，循环队列
+    private int[] queue;
+    private boolean[] queued;
+    private int head;
+    private int size;
+    // 单个节点的残差阈值
+    private double threshold;
+    // 按最大值判断时残差总和的上限，取建立时的残差总和，使多次追加之后的精度不低于起点
+    private double residualBudget = Double.POSITIVE_INFINITY;
+    private long pushes;
+
+    // 从 ranks 出发建立增量状态并推送到满足收敛判据，ranks 不会被修改
+    public IncrementalPageRank(CompactGraph graph, double[] ranks, double dampingFactor,
+                               PageRankEngine.DanglingPolicy danglingPolicy,
+                               PageRankEngine.Convergence convergence, double tolerance) {
+        this.graph = graph;
+        this.dampingFactor = dampingFactor;
+        this.danglingPolicy = danglingPolicy;
+        this.convergence = convergence;
+        this.tolerance = tolerance;
+        int n = graph.nodeCount();
+        this.rank = Arrays.copyOf(ranks, n);
+        this.residual = new double[n];
+        this.queue = new int[Math.max(16, n)];
+        this.queued = new boolean[n];
+        this.threshold = threshold(n);
+
+        // 完整计算一次残差
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        for (int node = 0; node < n; node++) {
+            if (offsets[node + 1] == offsets[node]) {
+                danglingSum += rank[node];
+            }
+        }
+        double base = teleport(n) + danglingCoefficient(n) * danglingSum;
+        for (int node = 0; node < n; node++) {
+            residual[node] += base - rank[node];
+            int outDegree = offsets[node + 1] - offsets[node];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                residual[targets[e]] += dampingFactor * rank[node] / outDegree;
+            }
+        }
+        for (int node = 0; node < n; node++) {
+            residualSum += Math.abs(residual[node]);
+            if (Math.abs(residual[node]) > threshold) {
+                enqueue(node);
+            }
+        }
+        pushes = 0;
+        settle();
+        if (convergence == PageRankEngine.Convergence.MAX_NORM) {
+            residualBudget = Math.max(residualSum, tolerance / 2.0);
+        }
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    // 当前的 PR 向量，按节点 id 索引；下一次 update 之前有效，调用方不得修改
+    public double[] ranks() {
+        return rank;
+    }
+
+    // 最近一次建立或更新时推送的次数
+    public long lastPushes() {
+        return pushes;
+    }
+
+    // 按收敛判据计算的残差：MAX_NORM 为单个节点残差的最大值，L1_NORM 为残差的绝对值之和
+    public double residual() {
+        int n = graph.nodeCount();
+        if (convergence == PageRankEngine.Convergence.L1_NORM) {
+            return residualSum + n * Math.abs(uniformResidual);
+        }
+        double max = 0.0;
+        for (int node = 0; node < n; node++) {
+            max = Math.max(max, Math.abs(residual[node]));
+        }
+        return n == 0 ? 0.0 : max + Math.abs(uniformResidual);
+    }
+
+    // 与精确不动点之间 L1 误差的上界：||x - x*||₁ ≤ (Σ|r| + N|u|) / (1 - 最大列和)
+    public double errorBound() {
+        int n = graph.nodeCount();
+        double contraction = maxColumnSum(n);
+        if (contraction >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (residualSum + n * Math.abs(uniformResidual)) / (1 - contraction);
+    }
+
+    // 图增长到 newGraph 后更新 PR 向量，addedEdges 为新增的边（键为 TextGraph.edgeKey）
+    // newGraph 必须包含旧图的全部节点和边，节点 id 保持不变
+    public void update(CompactGraph newGraph, long[] addedEdges) {
+        CompactGraph oldGraph = graph;
+        int oldCount = oldGraph.nodeCount();
+        int newCount = newGraph.nodeCount();
+        double oldBase = teleport(oldCount) + danglingCoefficient(oldCount) * danglingSum;
+        if (newCount > oldCount) {
+            rank = Arrays.copyOf(rank, newCount);
+            residual = Arrays.copyOf(residual, newCount);
+            queued = Arrays.copyOf(queued, newCount);
+            if (queue.length < newCount) {
+                int[] grown = new int[newCount];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = queue[(head + i) % queue.length];
+                }
+                queue = grown;
+                head = 0;
+            }
+        }
+        graph = newGraph;
+        threshold = threshold(newCount);
+        pushes = 0;
+        // 新节点的 x 为 0，残差取旧图的公共部分，之后再统一加上公共部分的变化
+        for (int node = oldCount; node < newCount; node++) {
+            setResidual(node, oldBase - uniformResidual);
+        }
+
+        // 出边发生变化的来源节点，每个只处理一次
+        int[] sources = new int[addedEdges.length];
+        for (int i = 0; i < addedEdges.length; i++) {
+            sources[i] = (int) (addedEdges[i] >>> 32);
+        }
+        Arrays.sort(sources);
+        int[] oldOffsets = oldGraph.getOffsets();
+        int[] oldTargets = oldGraph.getTargets();
+        int[] newOffsets = newGraph.getOffsets();
+        int[] newTargets = newGraph.getTargets();
+        for (int i = 0; i < sources.length; i++) {
+            int source = sources[i];
+            if (i > 0 && sources[i - 1] == source) {
+                continue;
+            }
+            int oldFrom = source < oldCount ? oldOffsets[source] : 0;
+            int oldTo = source < oldCount ? oldOffsets[source + 1] : 0;
+            int oldDegree = oldTo - oldFrom;
+            int newDegree = newOffsets[source + 1] - newOffsets[source];
+            double value = rank[source];
+            if (value == 0) {
+                continue;
+            }
+            if (oldDegree == 0) {
+                // 原来是悬挂节点，它的 PR 不再计入 D
+                danglingSum -= value;
+            }
+            // 旧目标的份额从 1/oldDegree 变为 1/newDegree，新目标获得 1/newDegree 的份额
+            double newShare = dampingFactor * value / newDegree;
+            double change = oldDegree == 0 ? 0.0 : newShare - dampingFactor * value / oldDegree;
+            int j = oldFrom;
+            for (int e = newOffsets[source]; e < newOffsets[source + 1]; e++) {
+                int target = newTargets[e];
+                if (j < oldTo && oldTargets[j] == target) {
+                    addResidual(target, change);
+                    j++;
+                } else {
+                    addResidual(target, newShare);
+                }
+            }
+        }
+        double newBase = teleport(newCount) + danglingCoefficient(newCount) * danglingSum;
+        uniformResidual += newBase - oldBase;
+        settle();
+    }
+
+    // 先局部推送，公共残差影响到收敛判据时再把它消掉，直到满足判据
+    // 公共残差作用在每个节点上，按最大值判断时也要限制它的总和，否则误差会随追加次数累积；
+    // 同样，阈值以下的局部残差总和超过上限时把阈值减半后继续推送
+    private void settle() {
+        int n = graph.nodeCount();
+        double uniformLimit = n == 0 ? Double.POSITIVE_INFINITY : tolerance / (2.0 * n);
+        while (true) {
+            pushLocal();
+            if (Math.abs(uniformResidual) > uniformLimit) {
+                if (uniformResidual < teleport(n)) {
+                    rescale();
+                } else {
+                    applyUniform();
+                }
+            } else if (residualSum > residualBudget) {
+                lowerThreshold();
+            } else {
+                break;
+            }
+        }
+    }
+
+    // 阈值减半，重新累加残差总和（消除增量维护的舍入误差），并把超过新阈值的节点入队
+    private void lowerThreshold() {
+        threshold /= 2;
+        residualSum = 0.0;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            residualSum += Math.abs(residual[node]);
+            if (!queued[node] && Math.abs(residual[node]) > threshold) {
+                enqueue(node);
+            }
+        }
+    }
+
+    private void pushLocal() {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int n = graph.nodeCount();
+        double coefficient = danglingCoefficient(n);
+        while (size > 0) {
+            int node = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            queued[node] = false;
+            double amount = residual[node];
+            if (Math.abs(amount) <= threshold) {
+                continue;
+            }
+            pushes++;
+            rank[node] += amount;
+            setResidual(node, 0.0);
+            int outDegree = offsets[node + 1] - offsets[node];
+            if (outDegree == 0) {
+                danglingSum += amount;
+                uniformResidual += coefficient * amount;
+                continue;
+            }
+            double share = dampingFactor * amount / outDegree;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                addResidual(targets[e], share);
+            }
+        }
+    }
+
+    // x 乘以 s 后总残差变为 s * (r + u) + (1 - s) * c，取 s = c / (c - u) 时公共部分恰好抵消，
+    // 只需 O(V) 缩放 x 和局部残差，不需要沿边传播
+    private void rescale() {
+        int n = graph.nodeCount();
+        double teleport = teleport(n);
+        double scale = teleport / (teleport - uniformResidual);
+        uniformResidual = 0.0;
+        danglingSum *= scale;
+        residualSum *= scale;
+        for (int node = 0; node < n; node++) {
+            rank[node] *= scale;
+            residual[node] *= scale;
+            if (!queued[node] && Math.abs(residual[node]) > threshold) {
+                enqueue(node);
+            }
+        }
+    }
+
+    // 把公共残差加到每个节点上，并把由此产生的份额沿出边传播，代价为 O(V + E)
+    private void applyUniform() {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int n = graph.nodeCount();
+        double amount = uniformResidual;
+        uniformResidual = 0.0;
+        for (int node = 0; node < n; node++) {
+            rank[node] += amount;
+            int outDegree = offsets[node + 1] - offsets[node];
+            if (outDegree == 0) {
+                danglingSum += amount;
+                uniformResidual += danglingCoefficient(n) * amount;
+                continue;
+            }
+            double share = dampingFactor * amount / outDegree;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                addResidual(targets[e], share);
+            }
+        }
+    }
+
+    private void addResidual(int node, double amount) {
+        setResidual(node, residual[node] + amount);
+    }
+
+    private void setResidual(int node, double value) {
+        residualSum += Math.abs(value) - Math.abs(residual[node]);
+        residual[node] = value;
+        if (!queued[node] && Math.abs(value) > threshold) {
+            enqueue(node);
+        }
+    }
+
+    private void enqueue(int node) {
+        queued[node] = true;
+        queue[(head + size) % queue.length] = node;
+        size++;
+    }
+
+    private double teleport(int n) {
+        return n == 0 ? 0.0 : (1 - dampingFactor) / n;
+    }
+
+    private double danglingCoefficient(int n) {
+        if (danglingPolicy == PageRankEngine.DanglingPolicy.DAMPED_UNIFORM) {
+            return n == 0 ? 0.0 : dampingFactor * dampingFactor / n;
+        }
+        return n > 1 ? dampingFactor / (n - 1) : 0.0;
+    }
+
+    // 单位 PR 经过一轮后流回全图的最大质量
+    private double maxColumnSum(int n) {
+        return Math.max(dampingFactor, danglingCoefficient(n) * n);
+    }
+
+    // 每个节点的残差都不超过该阈值、公共残差也不超过它时，残差满足收敛判据
+    private double threshold(int n) {
+        if (convergence == PageRankEngine.Convergence.L1_NORM && n > 0) {
+            return tolerance / (2.0 * n);
+        }
+        return tolerance / 2.0;
+    }
+}
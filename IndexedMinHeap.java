@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+// 带索引的 d 叉最小堆：元素是 [0, capacity) 内的 int id，每个 id 至多出现一次
+// 通过 position 数组定位 id 在堆中的位置，支持 O(log n) 的减小键值，不需要像 PriorityQueue 那样重复插入
+// 键值为 double，int 距离可以无损存放；所有数组在构造时分配，clear 之后可以直接复用
+public class IndexedMinHeap {
+    private static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    private final int[] heap;
+    // id 在 heap 中的下标，-1 表示不在堆中
+    private final int[] position;
+    private final double[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    public IndexedMinHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("堆的分叉数至少为 2: " + arity);
+        }
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return position[id] >= 0;
+    }
+
+    // id 当前的键值，只对堆中的 id 有意义
+    public double key(int id) {
+        return keys[id];
+    }
+
+    // 插入 id，或把已在堆中的 id 的键值改为 key
+    public void offer(int id, double key) {
+        int index = position[id];
+        if (index < 0) {
+            keys[id] = key;
+            heap[size] = id;
+            position[id] = size;
+            siftUp(size++);
+        } else if (key < keys[id]) {
+            keys[id] = key;
+            siftUp(index);
+        } else if (key > keys[id]) {
+            keys[id] = key;
+            siftDown(index);
+        }
+    }
+
+    // 堆顶的 id，堆为空时为 -1
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    public double peekKey() {
+        return keys[heap[0]];
+    }
+
+    // 弹出键值最小的 id，键值仍可通过 key(id) 读取，直到该 id 再次入堆
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        if (--size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // 把 id 从堆中移除，不在堆中时什么也不做
+    public void remove(int id) {
+        int index = position[id];
+        if (index < 0) {
+            return;
+        }
+        position[id] = -1;
+        if (index == --size) {
+            return;
+        }
+        int last = heap[size];
+        heap[index] = last;
+        position[last] = index;
+        siftUp(index);
+        siftDown(position[last]);
+    }
+
+    // 清空堆，只重置仍在堆中的 id，不重新分配数组
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int index) {
+        int id = heap[index];
+        double key = keys[id];
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[index] = parentId;
+            position[parentId] = index;
+            index = parent;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    private void siftDown(int index) {
+        int id = heap[index];
+        double key = keys[id];
+        while (true) {
+            int first = index * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int child = first;
+            double childKey = keys[heap[first]];
+            for (int c = first + 1; c < last; c++) {
+                double k = keys[heap[c]];
+                if (k < childKey) {
+                    child = c;
+                    childKey = k;
+                }
+            }
+            if (childKey >= key) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[child]] = index;
+            index = child;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+}
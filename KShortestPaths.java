@@ -0,0 +1,239 @@
+import java.util.*;
+
+// 前 k 条最短无环路径（Yen 算法，带 Lawler 的改进：每条路径只从它的偏离点之后开始找偏离路径）
+// 先从终点沿入边做一次反向 Dijkstra，得到每个节点到终点的距离和最短路径上的下一跳，之后：
+// - 偏离点的最短路径若没有被删掉的边和节点挡住，直接沿反向最短路径树取出，不需要搜索
+// - 否则以到终点的距离作为启发函数做 A*，删边删点只会让距离变长，启发函数仍然是可采纳且一致的
+// 搜索状态用版本号标记，所有数组在多次查询之间复用
+public class KShortestPaths {
+    private final CompactGraph graph;
+    private final ShortestPathTree reverseTree;
+    // 反向最短路径树：到终点的距离以及下一跳
+    private final int[] toTarget;
+    private final int[] nextHop;
+    // A* 的状态，只有标记等于当前版本号时才有效
+    private final int[] distance;
+    private final int[] previous;
+    private final int[] stamp;
+    // 被删除的节点（根路径上除偏离点以外的节点）
+    private final int[] blocked;
+    private final VersionStamp versions;
+    private int version;
+    private final IndexedMinHeap queue;
+    private int target = -1;
+
+    public KShortestPaths(CompactGraph graph) {
+        int n = graph.nodeCount();
+        this.graph = graph;
+        this.reverseTree = new ShortestPathTree(graph, false, true);
+        this.toTarget = reverseTree.distances();
+        this.nextHop = reverseTree.predecessors();
+        this.distance = new int[n];
+        this.previous = new int[n];
+        this.stamp = new int[n];
+        this.blocked = new int[n];
+        this.versions = new VersionStamp(stamp, blocked);
+        this.queue = new IndexedMinHeap(n);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    // 一条路径：节点 id 序列及其总长度
+    public static final class Path {
+        private final int[] nodes;
+        private final long length;
+        // 生成该路径时的偏离点下标，之前的前缀已经被其他路径探索过
+        private final int deviation;
+
+        Path(int[] nodes, long length, int deviation) {
+            this.nodes = nodes;
+            this.length = length;
+            this.deviation = deviation;
+        }
+
+        public int[] nodes() {
+            return nodes;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Path && Arrays.equals(nodes, ((Path) other).nodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(nodes);
+        }
+    }
+
+    // 按长度升序返回 source 到 target 的前 k 条无环路径，长度相同的按节点数、再按节点 id 字典序排列
+    // 没有路径或 source 等于 target 时返回空列表
+    public List<Path> compute(int source, int target, int k) {
+        List<Path> result = new ArrayList<>();
+        if (k <= 0 || source == target) {
+            return result;
+        }
+        if (this.target != target) {
+            reverseTree.compute(target);
+            this.target = target;
+        }
+        if (toTarget[source] == ShortestPathTree.UNREACHABLE) {
+            return result;
+        }
+
+        PriorityQueue<Path> candidates = new PriorityQueue<>(KShortestPaths::compare);
+        Set<Path> seen = new HashSet<>();
+        Path first = new Path(treePath(source, new int[0], 0), toTarget[source], 0);
+        result.add(first);
+        seen.add(first);
+        int[] banned = new int[16];
+
+        while (result.size() < k) {
+            Path last = result.get(result.size() - 1);
+            int[] nodes = last.nodes;
+            long rootLength = 0;
+            for (int i = 0; i < last.deviation; i++) {
+                rootLength += graph.weight(nodes[i], nodes[i + 1]);
+            }
+            for (int i = last.deviation; i < nodes.length - 1; i++) {
+                int spur = nodes[i];
+                // 与当前根路径前缀相同的已选路径，其下一条边都要删掉
+                int bannedCount = 0;
+                for (Path path : result) {
+                    int[] other = path.nodes;
+                    if (other.length > i + 1 && samePrefix(other, nodes, i + 1)) {
+                        if (bannedCount == banned.length) {
+                            banned = Arrays.copyOf(banned, bannedCount * 2);
+                        }
+                        banned[bannedCount++] = other[i + 1];
+                    }
+                }
+                version = versions.next();
+                for (int j = 0; j < i; j++) {
+                    blocked[nodes[j]] = version;
+                }
+                int[] candidate = spurPath(nodes, i, banned, bannedCount);
+                if (candidate != null) {
+                    Path path = new Path(candidate, rootLength + distance[target], i);
+                    if (seen.add(path)) {
+                        candidates.add(path);
+                    }
+                }
+                rootLength += graph.weight(spur, nodes[i + 1]);
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            result.add(candidates.poll());
+        }
+        return result;
+    }
+
+    // 求 nodes[spurIndex] 到终点、避开已删除节点和边的最短路径，并接在根路径之后
+    // 找到时 distance[target] 为偏离路径的长度
+    private int[] spurPath(int[] nodes, int spurIndex, int[] banned, int bannedCount) {
+        int spur = nodes[spurIndex];
+        // 反向最短路径树上的路径没有被挡住时直接使用
+        boolean clear = !contains(banned, bannedCount, nextHop[spur]);
+        for (int at = nextHop[spur]; clear && at >= 0; at = nextHop[at]) {
+            clear = blocked[at] != version;
+        }
+        if (clear) {
+            distance[target] = toTarget[spur];
+            return treePath(spur, nodes, spurIndex);
+        }
+
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] weights = graph.getWeights();
+        queue.clear();
+        stamp[spur] = version;
+        distance[spur] = 0;
+        previous[spur] = -1;
+        queue.offer(spur, toTarget[spur]);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (node == target) {
+                break;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                if (blocked[neighbor] == version || toTarget[neighbor] == ShortestPathTree.UNREACHABLE
+                        || node == spur && contains(banned, bannedCount, neighbor)) {
+                    continue;
+                }
+                long newDistance = (long) distance[node] + weights[e];
+                if (newDistance >= ShortestPathTree.UNREACHABLE) {
+                    continue;
+                }
+                if (stamp[neighbor] != version || newDistance < distance[neighbor]) {
+                    stamp[neighbor] = version;
+                    distance[neighbor] = (int) newDistance;
+                    previous[neighbor] = node;
+                    queue.offer(neighbor, newDistance + toTarget[neighbor]);
+                }
+            }
+        }
+        if (stamp[target] != version) {
+            return null;
+        }
+        int count = 0;
+        for (int at = target; at != spur; at = previous[at]) {
+            count++;
+        }
+        int[] path = Arrays.copyOf(nodes, spurIndex + 1 + count);
+        for (int at = target, i = path.length - 1; at != spur; at = previous[at], i--) {
+            path[i] = at;
+        }
+        return path;
+    }
+
+    // 根路径 prefix[0..prefixEnd) 接上从 from 沿反向最短路径树到终点的路径
+    private int[] treePath(int from, int[] prefix, int prefixEnd) {
+        int count = 0;
+        for (int at = from; at >= 0; at = nextHop[at]) {
+            count++;
+        }
+        int[] path = Arrays.copyOf(prefix, prefixEnd + count);
+        int i = prefixEnd;
+        for (int at = from; at >= 0; at = nextHop[at]) {
+            path[i++] = at;
+        }
+        return path;
+    }
+
+    private static boolean samePrefix(int[] a, int[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(Path a, Path b) {
+        int result = Long.compare(a.length, b.length);
+        if (result == 0) {
+            result = Integer.compare(a.nodes.length, b.nodes.length);
+        }
+        for (int i = 0; result == 0 && i < a.nodes.length; i++) {
+            result = Integer.compare(a.nodes[i], b.nodes[i]);
+        }
+        return result;
+    }
+}
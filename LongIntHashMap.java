@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+// long -> int 的开放寻址哈希表，键值按插入顺序紧凑存放，避免装箱和 Entry 对象
+public class LongIntHashMap {
+    private long[] keys;
+    private int[] values;
+    // 哈希槽存放下标 + 1，0 表示空槽
+    private int[] slots;
+    private int size;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        keys = new long[capacity];
+        values = new int[capacity];
+        slots = new int[tableSizeFor(capacity * 2)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long keyAt(int index) {
+        return keys[index];
+    }
+
+    public int valueAt(int index) {
+        return values[index];
+    }
+
+    // 返回键的插入下标，不存在时返回 -1
+    public int indexOf(long key) {
+        int mask = slots.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+            if (keys[slot - 1] == key) {
+                return slot - 1;
+            }
+        }
+    }
+
+    public int get(long key, int defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    // 累加键对应的值（不存在时从 0 开始），返回该键的插入下标
+    public int addTo(long key, int delta) {
+        int mask = slots.length - 1;
+        int i = mix(key) & mask;
+        for (; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                break;
+            }
+            if (keys[slot - 1] == key) {
+                values[slot - 1] += delta;
+                return slot - 1;
+            }
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int index = size++;
+        keys[index] = key;
+        values[index] = delta;
+        slots[i] = index + 1;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return index;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] newSlots = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int i = mix(keys[index]) & mask;
+            while (newSlots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newSlots[i] = index + 1;
+        }
+        slots = newSlots;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n, 2) - 1) << 1;
+        return Math.max(capacity, 2);
+    }
+}
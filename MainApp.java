@@ -1,6 +1,6 @@
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 public class MainApp {
@@ -18,7 +18,12 @@ public class MainApp {
         // System.out.println("请输入文件路径:");
         // String filePath = scanner.nextLine();
 
-        try {
+        // 输出目录可由第一个参数指定，默认为当前目录；文件由后台线程写出，退出时关闭
+        Path outputDirectory = Paths.get(args.length > 0 ? args[0] : ".");
+
+        try (AsyncOutputSink walkPaths = AsyncOutputSink.shared(outputDirectory.resolve("random_walk_path.txt"));
+             AsyncOutputSink walkResults = new AsyncOutputSink(outputDirectory.resolve("random_walk.txt"))) {
+            operations.setOutputSink(walkPaths);
             graph.buildGraph(filePath);
             
             while (true) {
@@ -85,9 +90,9 @@ public class MainApp {
                         System.out.println("随机游走路径: " + walkPath);
     
                         // 可选：保留原文件保存功能
-                        try (BufferedWriter writer = new BufferedWriter(new FileWriter("random_walk.txt"))) {
-                            writer.write(walkPath.replace(" -> ", " "));
-                            System.out.println("路径已保存至文件");
+                        try {
+                            walkResults.write(walkPath.replace(" -> ", " "));
+                            System.out.println("路径已加入 " + walkResults.currentFile().getFileName() + " 的写出队列");
                         } catch (IOException e) {
                             System.err.println("保存失败: " + e.getMessage());
                         }
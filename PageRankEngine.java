@@ -0,0 +1,418 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 基于 CSR 快照的 PageRank：每轮先算出每个节点沿每条出边分出去的份额，再沿入边索引把份额拉到目标节点
+// 两个 double[] 排名向量在迭代之间交换，每轮代价为 O(V + E)，不分配任何对象
+// 入边来源按 id 升序存放，与按来源顺序沿出边推送的累加顺序完全相同，结果逐位一致
+// 除幂迭代外还支持 Gauss-Seidel 原地更新和二次外推，solve 报告迭代轮数和最终残差
+public class PageRankEngine {
+    // 出度为 0 的节点的 PR 值如何分配
+    public enum DanglingPolicy {
+        // 乘以阻尼系数后均分给所有节点，再与其他贡献一起乘一次阻尼系数（GraphOperations 原有的算法）
+        DAMPED_UNIFORM,
+        // 均分给除自己以外的 N - 1 个节点，实际对每个节点都加上总和 / (N - 1)（TextGraphBuilder 原有的算法）
+        SHARED_WITH_OTHERS
+    }
+
+    // 迭代方法
+    public enum Method {
+        // 幂迭代：每轮都用上一轮的完整向量计算新向量，可以并行
+        JACOBI,
+        // 按节点 id 顺序原地更新，后面的节点直接使用本轮已更新的值，通常迭代次数更少；只能单线程
+        GAUSS_SEIDEL,
+        // 幂迭代，每隔若干轮用最近四轮的向量做二次外推（Kamvar 等），消去误差中最慢衰减的两个方向
+        QUADRATIC
+    }
+
+    // 收敛判据
+    public enum Convergence {
+        // 每个节点的变化都不超过 tolerance
+        MAX_NORM,
+        // 所有节点变化的绝对值之和小于 tolerance
+        L1_NORM
+    }
+
+    private final CompactGraph graph;
+    private double dampingFactor = 0.85;
+    private double tolerance = 0.0001;
+    private DanglingPolicy danglingPolicy = DanglingPolicy.DAMPED_UNIFORM;
+    private Convergence convergence = Convergence.MAX_NORM;
+    private Method method = Method.JACOBI;
+    private int maxIterations = Integer.MAX_VALUE;
+    private ForkJoinPool pool;
+    private int blocks;
+    // 二次外推的间隔轮数
+    private static final int EXTRAPOLATION_INTERVAL = 4;
+
+    // 一次 compute 期间的工作数组，每个区间的部分和按区间下标存放
+    private double[] rank;
+    private double[] next;
+    private double[] share;
+    private double danglingShare;
+    private double[] danglingSums;
+    private double[] maxDiffs;
+    private double[] totalDiffs;
+
+    public PageRankEngine(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public void setDampingFactor(double dampingFactor) {
+        this.dampingFactor = dampingFactor;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public void setDanglingPolicy(DanglingPolicy danglingPolicy) {
+        this.danglingPolicy = danglingPolicy;
+    }
+
+    public void setConvergence(Convergence convergence) {
+        this.convergence = convergence;
+    }
+
+    public void setMethod(Method method) {
+        this.method = method;
+    }
+
+    // 迭代次数上限，达到上限时即使没有收敛也返回当前结果
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("迭代次数上限至少为 1: " + maxIterations);
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    // 一次计算的结果：PR 向量、迭代轮数、最后一轮的残差（按收敛判据计算的变化量）以及是否收敛
+    public static final class Result {
+        private final double[] ranks;
+        private final int iterations;
+        private final double residual;
+        private final boolean converged;
+
+        Result(double[] ranks, int iterations, double residual, boolean converged) {
+            this.ranks = ranks;
+            this.iterations = iterations;
+            this.residual = residual;
+            this.converged = converged;
+        }
+
+        public double[] ranks() {
+            return ranks;
+        }
+
+        public int iterations() {
+            return iterations;
+        }
+
+        public double residual() {
+            return residual;
+        }
+
+        public boolean converged() {
+            return converged;
+        }
+    }
+
+    // 并行计算：节点按 blocks 个连续区间划分，区间边界按节点数加入边数均衡，只取决于 blocks 而与线程数无关
+    // 悬挂节点 PR 之和与收敛判据先在每个区间内按顺序累加，再按区间顺序合并，因此同一个 blocks 下结果逐位可复现
+    // pool 为 null 时单线程计算
+    public void setParallelism(ForkJoinPool pool, int blocks) {
+        if (pool != null && blocks < 1) {
+            throw new IllegalArgumentException("分块数至少为 1: " + blocks);
+        }
+        this.pool = pool;
+        this.blocks = blocks;
+    }
+
+    // 从 initial 出发迭代到收敛，返回按节点 id 索引的 PR 值；initial 不会被修改
+    public double[] compute(double[] initial) {
+        return solve(initial).ranks();
+    }
+
+    // 从 initial 出发迭代到收敛或达到迭代次数上限，同时报告迭代轮数和残差
+    // 同一个引擎不能被多个线程同时调用；Gauss-Seidel 总是单线程计算
+    public Result solve(double[] initial) {
+        int n = graph.nodeCount();
+        rank = Arrays.copyOf(initial, n);
+        next = new double[n];
+        share = new double[n];
+        if (n == 0) {
+            return new Result(rank, 0, 0.0, true);
+        }
+        Result result = method == Method.GAUSS_SEIDEL ? gaussSeidel() : powerIteration();
+        rank = next = share = null;
+        return result;
+    }
+
+    private Result powerIteration() {
+        int n = graph.nodeCount();
+        int[] bounds = pool == null ? new int[]{0, n} : partition(Math.min(blocks, n));
+        int blockCount = bounds.length - 1;
+        danglingSums = new double[blockCount];
+        maxDiffs = new double[blockCount];
+        totalDiffs = new double[blockCount];
+        // 二次外推需要的前三轮向量，history[0] 最旧
+        double[][] history = method == Method.QUADRATIC ? new double[3][n] : null;
+
+        int iterations = 0;
+        double residual;
+        boolean converged;
+        do {
+            if (history != null) {
+                double[] oldest = history[0];
+                history[0] = history[1];
+                history[1] = history[2];
+                history[2] = oldest;
+                System.arraycopy(rank, 0, oldest, 0, n);
+            }
+            runBlocks(bounds, true);
+            double danglingSum = 0.0;
+            for (int b = 0; b < blockCount; b++) {
+                danglingSum += danglingSums[b];
+            }
+            danglingShare = danglingShare(danglingSum);
+
+            runBlocks(bounds, false);
+            double maxDiff = 0.0;
+            double totalDiff = 0.0;
+            for (int b = 0; b < blockCount; b++) {
+                maxDiff = Math.max(maxDiff, maxDiffs[b]);
+                totalDiff += totalDiffs[b];
+            }
+            double[] swap = rank;
+            rank = next;
+            next = swap;
+            iterations++;
+            residual = convergence == Convergence.MAX_NORM ? maxDiff : totalDiff;
+            converged = isConverged(residual);
+            if (!converged && history != null && iterations > history.length && iterations % EXTRAPOLATION_INTERVAL == 0) {
+                extrapolate(history);
+            }
+        } while (!converged && iterations < maxIterations);
+        return new Result(rank, iterations, residual, converged);
+    }
+
+    // 逐个节点原地更新，份额和悬挂节点 PR 之和随之增量维护
+    // 原地更新不像幂迭代那样保持误差的总质量为 0，每轮结束后按不动点满足的质量关系把向量整体缩放，
+    // 否则主特征方向上的误差会让收敛速度退化到接近阻尼系数
+    private Result gaussSeidel() {
+        int n = graph.nodeCount();
+        int[] offsets = graph.getOffsets();
+        int[] inOffsets = graph.getInOffsets();
+        int[] inSources = graph.getInSources();
+        double danglingSum = 0.0;
+        for (int node = 0; node < n; node++) {
+            int outDegree = offsets[node + 1] - offsets[node];
+            if (outDegree == 0) {
+                danglingSum += rank[node];
+            } else {
+                share[node] = rank[node] / outDegree;
+            }
+        }
+        // 每单位 PR 经过一轮后流回全图的质量：有出边的节点为阻尼系数，悬挂节点取决于分配方式
+        double danglingOutflow = danglingPolicy == DanglingPolicy.DAMPED_UNIFORM
+                ? dampingFactor * dampingFactor
+                : (n > 1 ? dampingFactor * n / (n - 1) : 0.0);
+
+        int iterations = 0;
+        double residual;
+        boolean converged;
+        do {
+            System.arraycopy(rank, 0, next, 0, n);
+            double mass = 0.0;
+            for (int node = 0; node < n; node++) {
+                double sum = 0.0;
+                for (int e = inOffsets[node]; e < inOffsets[node + 1]; e++) {
+                    sum += share[inSources[e]];
+                }
+                sum += danglingShare(danglingSum);
+                double newRank = (1 - dampingFactor) / n + dampingFactor * sum;
+                int outDegree = offsets[node + 1] - offsets[node];
+                if (outDegree == 0) {
+                    danglingSum += newRank - rank[node];
+                } else {
+                    share[node] = newRank / outDegree;
+                }
+                rank[node] = newRank;
+                mass += newRank;
+            }
+            // 不动点的总质量 M 满足 M = (1 - d) + d * (M - D) + danglingOutflow * D，按当前的悬挂质量比例求出 M 后缩放
+            double outflow = dampingFactor * (mass - danglingSum) + danglingOutflow * danglingSum;
+            double scale = mass > 0 && outflow < mass ? (1 - dampingFactor) / (mass - outflow) : 1.0;
+            double maxDiff = 0.0;
+            double totalDiff = 0.0;
+            for (int node = 0; node < n; node++) {
+                rank[node] *= scale;
+                share[node] *= scale;
+                double diff = Math.abs(rank[node] - next[node]);
+                maxDiff = Math.max(maxDiff, diff);
+                totalDiff += diff;
+            }
+            danglingSum *= scale;
+            iterations++;
+            residual = convergence == Convergence.MAX_NORM ? maxDiff : totalDiff;
+            converged = isConverged(residual);
+        } while (!converged && iterations < maxIterations);
+        return new Result(rank, iterations, residual, converged);
+    }
+
+    // 二次外推：设 x(k) = x* + a u + b v，u、v 为误差中衰减最慢的两个方向，则存在 g0、g1 使
+    // g0 e(k-2) + g1 e(k-1) + e(k) = 0，相邻两轮的差值满足同样的关系。用最近三个差值按最小二乘求出 g0、g1，
+    // 得到 x* = (g0 x(k-2) + g1 x(k-1) + x(k)) / (g0 + g1 + 1)。方程病态或结果不可用时保留原值
+    private void extrapolate(double[][] history) {
+        double[] x0 = history[0];
+        double[] x1 = history[1];
+        double[] x2 = history[2];
+        double a11 = 0.0;
+        double a12 = 0.0;
+        double a22 = 0.0;
+        double b1 = 0.0;
+        double b2 = 0.0;
+        for (int node = 0; node < rank.length; node++) {
+            double d1 = x1[node] - x0[node];
+            double d2 = x2[node] - x1[node];
+            double d3 = rank[node] - x2[node];
+            a11 += d1 * d1;
+            a12 += d1 * d2;
+            a22 += d2 * d2;
+            b1 -= d1 * d3;
+            b2 -= d2 * d3;
+        }
+        double det = a11 * a22 - a12 * a12;
+        if (!(det > 1e-12 * a11 * a22)) {
+            return;
+        }
+        double g0 = (b1 * a22 - b2 * a12) / det;
+        double g1 = (a11 * b2 - a12 * b1) / det;
+        double sum = g0 + g1 + 1;
+        if (!(Math.abs(sum) > 1e-8)) {
+            return;
+        }
+        for (int node = 0; node < rank.length; node++) {
+            double value = (g0 * x1[node] + g1 * x2[node] + rank[node]) / sum;
+            next[node] = value;
+            if (!(value > 0)) {
+                return;
+            }
+        }
+        double[] swap = rank;
+        rank = next;
+        next = swap;
+    }
+
+    private double danglingShare(double danglingSum) {
+        int n = graph.nodeCount();
+        if (danglingPolicy == DanglingPolicy.DAMPED_UNIFORM) {
+            return dampingFactor * danglingSum / n;
+        }
+        return n > 1 ? danglingSum / (n - 1) : 0.0;
+    }
+
+    private boolean isConverged(double residual) {
+        return convergence == Convergence.MAX_NORM ? residual <= tolerance : residual < tolerance;
+    }
+
+    // 第一阶段：计算区间内每个节点沿出边分出去的份额，并累加区间内悬挂节点的 PR 值
+    private void scatter(int block, int from, int to) {
+        int[] offsets = graph.getOffsets();
+        double danglingSum = 0.0;
+        for (int node = from; node < to; node++) {
+            int outDegree = offsets[node + 1] - offsets[node];
+            if (outDegree == 0) {
+                danglingSum += rank[node];
+            } else {
+                share[node] = rank[node] / outDegree;
+            }
+        }
+        danglingSums[block] = danglingSum;
+    }
+
+    // 第二阶段：沿入边把份额拉到区间内的节点，并记录区间内的变化量
+    private void gather(int block, int from, int to) {
+        int[] inOffsets = graph.getInOffsets();
+        int[] inSources = graph.getInSources();
+        double maxDiff = 0.0;
+        double totalDiff = 0.0;
+        for (int node = from; node < to; node++) {
+            double sum = 0.0;
+            for (int e = inOffsets[node]; e < inOffsets[node + 1]; e++) {
+                sum += share[inSources[e]];
+            }
+            sum += danglingShare;
+            double newRank = (1 - dampingFactor) / graph.nodeCount() + dampingFactor * sum;
+            double diff = Math.abs(newRank - rank[node]);
+            maxDiff = Math.max(maxDiff, diff);
+            totalDiff += diff;
+            next[node] = newRank;
+        }
+        maxDiffs[block] = maxDiff;
+        totalDiffs[block] = totalDiff;
+    }
+
+    private void runBlocks(int[] bounds, boolean scatter) {
+        if (pool == null) {
+            for (int b = 0; b + 1 < bounds.length; b++) {
+                if (scatter) {
+                    scatter(b, bounds[b], bounds[b + 1]);
+                } else {
+                    gather(b, bounds[b], bounds[b + 1]);
+                }
+            }
+        } else {
+            pool.invoke(new BlockTask(bounds, scatter, 0, bounds.length - 1));
+        }
+    }
+
+    // 按节点数加入边数把 [0, n) 划分为 blockCount 个连续区间，返回 blockCount + 1 个边界
+    private int[] partition(int blockCount) {
+        int n = graph.nodeCount();
+        int[] inOffsets = graph.getInOffsets();
+        long total = (long) n + inOffsets[n];
+        int[] bounds = new int[blockCount + 1];
+        int node = 0;
+        for (int b = 1; b < blockCount; b++) {
+            long goal = total * b / blockCount;
+            while (node < n && (long) node + inOffsets[node] < goal) {
+                node++;
+            }
+            bounds[b] = Math.max(node, bounds[b - 1]);
+        }
+        bounds[blockCount] = n;
+        return bounds;
+    }
+
+    private final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] bounds;
+        private final boolean scatter;
+        private final int from;
+        private final int to;
+
+        BlockTask(int[] bounds, boolean scatter, int from, int to) {
+            this.bounds = bounds;
+            this.scatter = scatter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BlockTask(bounds, scatter, from, middle), new BlockTask(bounds, scatter, middle, to));
+            } else if (scatter) {
+                scatter(from, bounds[from], bounds[from + 1]);
+            } else {
+                gather(from, bounds[from], bounds[from + 1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 并行分词：把文件按空白边界切成若干字节区间，在 ForkJoinPool 上分别分词并统计局部的边和词频
+// 各区间的局部结果按顺序交给 TextGraph 合并，合并后与顺序构建的结果完全一致
+class ParallelGraphBuilder {
+    // 每个区间至少 1 MB，太小的区间合并开销会超过并行收益
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    // 区间数为并行度的若干倍，便于工作窃取平衡负载
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // 单个字节区间的局部统计结果，id 只在区间内有效
+    static final class Chunk implements WordTokenizer.WordSink {
+        final Vocabulary vocabulary = new Vocabulary();
+        final LongIntHashMap edges = new LongIntHashMap();
+        int[] termCounts = new int[16];
+        long totalWords;
+        int firstWord = -1;
+        int lastWord = -1;
+        private final long start;
+        private final long end;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void accept(char[] buffer, int length) {
+            int current = vocabulary.intern(buffer, 0, length);
+            if (current == termCounts.length) {
+                termCounts = Arrays.copyOf(termCounts, current * 2);
+            }
+            termCounts[current]++;
+            totalWords++;
+            if (lastWord >= 0) {
+                edges.addTo(TextGraph.edgeKey(lastWord, current), 1);
+            } else {
+                firstWord = current;
+            }
+            lastWord = current;
+        }
+    }
+
+    private ParallelGraphBuilder() {
+    }
+
+    // 切分文件并并行分词，返回按文件顺序排列的区间结果
+    static List<Chunk> tokenize(File file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel, pool.getParallelism());
+            if (chunks.isEmpty()) {
+                return chunks;
+            }
+            try {
+                pool.invoke(new ChunkTask(channel, chunks, 0, chunks.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return chunks;
+        }
+    }
+
+    // 区间边界向后移动到下一个空白字节，保证单词不会被切开
+    // 多字节 UTF-8 字符中不含 ASCII 字节，所以按字节切分是安全的
+    private static List<Chunk> split(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / ((long) parallelism * CHUNKS_PER_THREAD) + 1);
+        // 映射区间不能超过 int 范围
+        chunkSize = Math.min(chunkSize, Integer.MAX_VALUE / 2);
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            end = nextWhitespace(channel, end, size, probe);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextWhitespace(FileChannel channel, long position, long size, ByteBuffer probe)
+            throws IOException {
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (WordTokenizer.isWhitespace(probe.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel channel;
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+
+        ChunkTask(FileChannel channel, List<Chunk> chunks, int from, int to) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(channel, chunks, from, middle),
+                        new ChunkTask(channel, chunks, middle, to));
+                return;
+            }
+            Chunk chunk = chunks.get(from);
+            WordTokenizer tokenizer = new WordTokenizer(chunk);
+            try {
+                tokenizer.feed(channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tokenizer.finish();
+        }
+    }
+}
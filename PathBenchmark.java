@@ -0,0 +1,91 @@
+import java.util.SplittableRandom;
+
+// 最短路径基准测试：在同一批随机单词对上比较索引堆 Dijkstra、双向 Dijkstra 和 Dial 桶队列
+// 用法：java PathBenchmark [文件路径] [查询次数]，默认使用 "Cursed Be The Treasure.txt"
+public class PathBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        String filePath = args.length > 0 ? args[0] : "Cursed Be The Treasure.txt";
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        TextGraph textGraph = new TextGraph();
+        textGraph.buildGraph(filePath);
+        CompactGraph graph = textGraph.freeze();
+        System.out.printf("节点数: %d, 边数: %d, 最大边权: %d%n",
+                graph.nodeCount(), graph.edgeCount(), graph.maxWeight());
+        if (graph.nodeCount() == 0) {
+            return;
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = random.nextInt(graph.nodeCount());
+            targets[i] = random.nextInt(graph.nodeCount());
+        }
+
+        ShortestPathTree heap = new ShortestPathTree(graph, false);
+        ShortestPathTree buckets = new ShortestPathTree(graph, true);
+        BidirectionalSearch bidirectional = new BidirectionalSearch(graph);
+
+        // 三种实现的结果必须一致
+        for (int i = 0; i < queries; i++) {
+            heap.compute(sources[i], targets[i]);
+            buckets.compute(sources[i], targets[i]);
+            int expected = sources[i] == targets[i] ? ShortestPathTree.UNREACHABLE : heap.distance(targets[i]);
+            if (buckets.distance(targets[i]) != heap.distance(targets[i])
+                    || bidirectional.search(sources[i], targets[i]) != expected) {
+                throw new IllegalStateException("结果不一致: " + graph.word(sources[i]) + " -> " + graph.word(targets[i]));
+            }
+        }
+
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            boolean report = round == WARMUP_ROUNDS;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                heap.compute(sources[i], targets[i]);
+            }
+            long heapPoint = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                bidirectional.search(sources[i], targets[i]);
+            }
+            long bidirectionalPoint = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                buckets.compute(sources[i], targets[i]);
+            }
+            long bucketPoint = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                heap.compute(sources[i]);
+            }
+            long heapTree = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                buckets.compute(sources[i]);
+            }
+            long bucketTree = System.nanoTime() - start;
+
+            if (report) {
+                System.out.printf("两点查询 %d 次:%n", queries);
+                print("  索引堆 Dijkstra", heapPoint, queries);
+                print("  双向 Dijkstra", bidirectionalPoint, queries);
+                print("  Dial 桶队列", bucketPoint, queries);
+                System.out.printf("单源最短路径树 %d 次:%n", queries);
+                print("  索引堆 Dijkstra", heapTree, queries);
+                print("  Dial 桶队列", bucketTree, queries);
+            }
+        }
+    }
+
+    private static void print(String name, long nanos, int queries) {
+        System.out.printf("%s: 总计 %.1f ms, 平均 %.1f us%n", name, nanos / 1e6, nanos / 1e3 / queries);
+    }
+}
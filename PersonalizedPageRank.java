@@ -0,0 +1,267 @@
+import java.util.*;
+
+// 个性化 PageRank：随机游走以 1 - d 的概率停下，每次跳回种子分布而不是全图，得分衡量每个单词与种子的相关程度
+// 先做前向推送（Andersen-Chung-Lang）：节点的残差超过 ε * 出度时把 (1 - d) 留作估计值，其余沿出边分给邻居，
+// 悬挂节点的残差回到种子。推送次数不超过 1 / (ε * (1 - d))，与全图规模无关
+// 推送结束后剩余残差 R 对应的部分可以再用随机游走估计（FORA）：从每个残差节点出发若干次游走，
+// 停点累加 残差 / 游走次数。游走总数由 Hoeffding 不等式决定，使每个单词的误差以 1 - pf 的概率不超过给定值
+// 节点状态用版本号标记，数组在多次查询之间复用
+public class PersonalizedPageRank {
+    private final CompactGraph graph;
+    private double dampingFactor = 0.85;
+    private double pushThreshold = 1e-5;
+    // 随机游走阶段的误差和失败概率，误差不为正时只做推送
+    private double walkError;
+    private double failureProbability = 0.01;
+    private SplittableRandom random = new SplittableRandom();
+
+    private final double[] estimate;
+    private final double[] residual;
+    private final int[] stamp;
+    private final boolean[] queued;
+    private final VersionStamp versions;
+    private int version;
+    // 本次查询访问过的节点
+    private int[] touched = new int[64];
+    private int touchedCount;
+    private int[] queue = new int[64];
+
+    public PersonalizedPageRank(CompactGraph graph) {
+        int n = graph.nodeCount();
+        this.graph = graph;
+        this.estimate = new double[n];
+        this.residual = new double[n];
+        this.stamp = new int[n];
+        this.versions = new VersionStamp(stamp);
+        this.queued = new boolean[n];
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public void setDampingFactor(double dampingFactor) {
+        if (dampingFactor <= 0 || dampingFactor >= 1) {
+            throw new IllegalArgumentException("阻尼系数必须在 0 和 1 之间: " + dampingFactor);
+        }
+        this.dampingFactor = dampingFactor;
+    }
+
+    // 推送阈值 ε，越小越精确，推送次数与 1 / ε 成正比
+    public void setPushThreshold(double pushThreshold) {
+        if (pushThreshold <= 0) {
+            throw new IllegalArgumentException("推送阈值必须为正: " + pushThreshold);
+        }
+        this.pushThreshold = pushThreshold;
+    }
+
+    // 推送后再用随机游走把每个单词的误差压到 walkError 以内（概率至少 1 - failureProbability）
+    // walkError 不为正时只做推送，误差不超过剩余残差之和
+    public void setMonteCarlo(double walkError, double failureProbability) {
+        if (walkError > 0 && (failureProbability <= 0 || failureProbability >= 1)) {
+            throw new IllegalArgumentException("失败概率必须在 0 和 1 之间: " + failureProbability);
+        }
+        this.walkError = walkError;
+        this.failureProbability = failureProbability;
+    }
+
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    // 查询结果：访问过的节点及其得分，没有出现的节点得分视为 0
+    public static final class Result {
+        private final int[] nodes;
+        private final double[] scores;
+        private final double residualMass;
+        private final long walks;
+
+        Result(int[] nodes, double[] scores, double residualMass, long walks) {
+            this.nodes = nodes;
+            this.scores = scores;
+            this.residualMass = residualMass;
+            this.walks = walks;
+        }
+
+        public int size() {
+            return nodes.length;
+        }
+
+        public int node(int i) {
+            return nodes[i];
+        }
+
+        public double score(int i) {
+            return scores[i];
+        }
+
+        // 推送结束时的残差之和；只做推送时它是每个单词得分误差的上界
+        public double residualMass() {
+            return residualMass;
+        }
+
+        public long walks() {
+            return walks;
+        }
+
+        // 得分最高的 k 个结果的下标，按得分降序排列，相同时按节点 id 升序
+        public int[] top(int k) {
+            return TopK.top(scores, nodes, nodes.length, k);
+        }
+    }
+
+    // 以单个单词为种子
+    public Result compute(int seed) {
+        return compute(new int[]{seed}, new double[]{1.0});
+    }
+
+    // 以加权的种子集合计算，权重会归一化；重复的种子权重相加
+    public Result compute(int[] seeds, double[] weights) {
+        if (seeds.length == 0 || seeds.length != weights.length) {
+            throw new IllegalArgumentException("种子与权重的数量不一致: " + seeds.length + " 和 " + weights.length);
+        }
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("种子权重必须为正: " + weight);
+            }
+            total += weight;
+        }
+        double[] distribution = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            distribution[i] = weights[i] / total;
+        }
+
+        version = versions.next();
+        touchedCount = 0;
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < seeds.length; i++) {
+            touch(seeds[i]);
+            residual[seeds[i]] += distribution[i];
+        }
+        for (int seed : seeds) {
+            if (!queued[seed] && residual[seed] > limit(seed)) {
+                queued[seed] = true;
+                queue = grow(queue, tail);
+                queue[tail++] = seed;
+            }
+        }
+
+        // 前向推送，队列只增不减，总长度即推送次数
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        while (head < tail) {
+            int node = queue[head++];
+            queued[node] = false;
+            double amount = residual[node];
+            residual[node] = 0;
+            estimate[node] += (1 - dampingFactor) * amount;
+            int outDegree = offsets[node + 1] - offsets[node];
+            if (outDegree == 0) {
+                for (int i = 0; i < seeds.length; i++) {
+                    tail = spread(seeds[i], dampingFactor * amount * distribution[i], tail);
+                }
+                continue;
+            }
+            double share = dampingFactor * amount / outDegree;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                tail = spread(targets[e], share, tail);
+            }
+        }
+
+        double residualMass = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            residualMass += residual[touched[i]];
+        }
+        long walks = walkError > 0 && residualMass > 0 ? estimateRemainder(seeds, distribution, residualMass) : 0;
+
+        int[] nodes = new int[touchedCount];
+        double[] scores = new double[touchedCount];
+        int count = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            if (estimate[node] > 0) {
+                nodes[count] = node;
+                scores[count++] = estimate[node];
+            }
+        }
+        return new Result(Arrays.copyOf(nodes, count), Arrays.copyOf(scores, count), residualMass, walks);
+    }
+
+    // 用随机游走估计剩余残差的贡献，残差为 r 的节点分到 ceil(r * W / R) 次游走，返回实际游走次数
+    private long estimateRemainder(int[] seeds, double[] distribution, double residualMass) {
+        double required = residualMass * residualMass * Math.log(2 / failureProbability)
+                / (2 * walkError * walkError);
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        long walks = 0;
+        // 游走会访问新节点，先固定需要游走的起点
+        int starts = touchedCount;
+        for (int i = 0; i < starts; i++) {
+            int start = touched[i];
+            double amount = residual[start];
+            if (amount <= 0) {
+                continue;
+            }
+            long count = (long) Math.ceil(amount * required / residualMass);
+            double share = amount / count;
+            for (long w = 0; w < count; w++) {
+                int node = start;
+                while (random.nextDouble() < dampingFactor) {
+                    int outDegree = offsets[node + 1] - offsets[node];
+                    node = outDegree == 0
+                            ? pickSeed(seeds, distribution)
+                            : targets[offsets[node] + random.nextInt(outDegree)];
+                }
+                touch(node);
+                estimate[node] += share;
+            }
+            walks += count;
+        }
+        return walks;
+    }
+
+    private int pickSeed(int[] seeds, double[] distribution) {
+        double value = random.nextDouble();
+        for (int i = 0; i < seeds.length - 1; i++) {
+            value -= distribution[i];
+            if (value < 0) {
+                return seeds[i];
+            }
+        }
+        return seeds[seeds.length - 1];
+    }
+
+    // 给节点加残差，超过阈值时入队
+    private int spread(int node, double amount, int tail) {
+        touch(node);
+        residual[node] += amount;
+        if (!queued[node] && residual[node] > limit(node)) {
+            queued[node] = true;
+            queue = grow(queue, tail);
+            queue[tail++] = node;
+        }
+        return tail;
+    }
+
+    private double limit(int node) {
+        return pushThreshold * Math.max(1, graph.outDegree(node));
+    }
+
+    // 第一次访问节点时清零它在上一次查询中的状态
+    private void touch(int node) {
+        if (stamp[node] != version) {
+            stamp[node] = version;
+            estimate[node] = 0;
+            residual[node] = 0;
+            queued[node] = false;
+            touched = grow(touched, touchedCount);
+            touched[touchedCount++] = node;
+        }
+    }
+
+    private static int[] grow(int[] array, int size) {
+        return size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// 批量随机游走：从随机起点出发，每步随机选一条出边，走到没有出边的节点或选中已经走过的边时停止（该边不计入路径）
+// 出边可以等概率选取，也可以用别名表按边权（二元组出现次数）选取
+// 直接在 CSR 的边下标上工作，已走过的边用版本号标记，每条游走不需要清空任何数组
+// 游走分成固定大小的批次并行执行，第 i 批使用根随机数按顺序拆分出的第 i 个生成器，
+// 因此每条游走的内容只取决于种子，与线程数和调度顺序无关
+public class RandomWalkEngine {
+    // 每批的游走条数，每批使用一个独立的随机数生成器
+    private static final int BATCH_SIZE = 1024;
+    // 每个线程大约分到的任务数，任务越多负载越均衡，但每个任务都要分配一份游走状态
+    private static final int TASKS_PER_THREAD = 4;
+    // 单个任务最多负责的批数
+    private static final int MAX_BATCHES_PER_TASK = 1024;
+
+    private final CompactGraph graph;
+    // 按边权选边时使用，等概率选边时为 null
+    private final AliasTable aliasTable;
+    // walk 使用的游走状态，大小与边数成正比，第一次调用时分配
+    private Walker walker;
+
+    // 接收游走结果，path[0..length) 为节点 id 序列；并行执行时会被多个线程同时调用
+    public interface Sink {
+        void accept(long index, int[] path, int length);
+    }
+
+    public RandomWalkEngine(CompactGraph graph) {
+        this(graph, false);
+    }
+
+    // weighted 为 true 时按边权选边，构造时为整个图建一次别名表
+    public RandomWalkEngine(CompactGraph graph, boolean weighted) {
+        this.graph = graph;
+        this.aliasTable = weighted ? new AliasTable(graph) : null;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public boolean isWeighted() {
+        return aliasTable != null;
+    }
+
+    // 在当前线程走一条，返回节点 id 序列；空图返回空数组
+    public synchronized int[] walk(SplittableRandom random) {
+        if (graph.nodeCount() == 0) {
+            return new int[0];
+        }
+        if (walker == null) {
+            walker = new Walker();
+        }
+        int length = walker.walk(random.nextInt(graph.nodeCount()), random);
+        return Arrays.copyOf(walker.path, length);
+    }
+
+    // 并行执行 count 条游走并依次交给 sink，pool 为 null 时在当前线程执行
+    public void run(long count, long seed, ForkJoinPool pool, Sink sink) {
+        if (count < 0) {
+            throw new IllegalArgumentException("游走次数不能为负: " + count);
+        }
+        if (graph.nodeCount() == 0 || count == 0) {
+            return;
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        long batches = (count + BATCH_SIZE - 1) / BATCH_SIZE;
+        if (pool == null) {
+            Walker state = new Walker();
+            for (long batch = 0; batch < batches; batch++) {
+                runBatch(state, batch, count, root.split(), sink);
+            }
+            return;
+        }
+        // 每个任务负责连续的若干批并共用一份游走状态，状态属于任务本身，任务结束后不会留在线程池的线程上
+        long tasksWanted = (long) pool.getParallelism() * TASKS_PER_THREAD;
+        int perTask = (int) Math.max(1, Math.min(MAX_BATCHES_PER_TASK, (batches + tasksWanted - 1) / tasksWanted));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (long first = 0; first < batches; first += perTask) {
+            long firstBatch = first;
+            SplittableRandom[] randoms = new SplittableRandom[(int) Math.min(perTask, batches - first)];
+            for (int i = 0; i < randoms.length; i++) {
+                randoms[i] = root.split();
+            }
+            tasks.add(pool.submit(() -> {
+                Walker state = new Walker();
+                for (int i = 0; i < randoms.length; i++) {
+                    runBatch(state, firstBatch + i, count, randoms[i], sink);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    // 第 batch 批游走：下标为 [batch * BATCH_SIZE, min(count, (batch + 1) * BATCH_SIZE))
+    private void runBatch(Walker state, long batch, long count, SplittableRandom random, Sink sink) {
+        long to = Math.min(count, (batch + 1) * BATCH_SIZE);
+        for (long index = batch * BATCH_SIZE; index < to; index++) {
+            int length = state.walk(random.nextInt(graph.nodeCount()), random);
+            sink.accept(index, state.path, length);
+        }
+    }
+
+    // 把每条游走写成一行以空格分隔的单词，写入是同步的，行的先后顺序取决于调度
+    public static Sink lines(CompactGraph graph, Writer out) {
+        return new Sink() {
+            private final StringBuilder line = new StringBuilder();
+
+            @Override
+            public synchronized void accept(long index, int[] path, int length) {
+                line.setLength(0);
+                for (int i = 0; i < length; i++) {
+                    if (i > 0) {
+                        line.append(' ');
+                    }
+                    line.append(graph.word(path[i]));
+                }
+                line.append('\n');
+                try {
+                    out.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private final class Walker {
+        private final int[] edgeStamp = new int[graph.edgeCount()];
+        private final VersionStamp versions = new VersionStamp(edgeStamp);
+        private int version;
+        private int[] path = new int[64];
+
+        // 从 start 出发走一条，路径存入 path，返回节点数
+        int walk(int start, SplittableRandom random) {
+            version = versions.next();
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+            int length = 0;
+            int node = start;
+            path[length++] = node;
+            while (true) {
+                int outDegree = offsets[node + 1] - offsets[node];
+                if (outDegree == 0) {
+                    break;
+                }
+                int edge = aliasTable != null
+                        ? aliasTable.sampleEdge(node, random)
+                        : offsets[node] + random.nextInt(outDegree);
+                if (edgeStamp[edge] == version) {
+                    break;
+                }
+                edgeStamp[edge] = version;
+                node = targets[edge];
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, length * 2);
+                }
+                path[length++] = node;
+            }
+            return length;
+        }
+    }
+}
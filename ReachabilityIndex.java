@@ -0,0 +1,221 @@
+import java.util.Arrays;
+
+// 可达性索引：用迭代的 Tarjan 算法求强连通分量，把图缩成有向无环图后为每个分量打可达性标签
+// 分量数不多时保存缩点图的传递闭包（每个分量一行位图），可达性查询精确且为 O(1)；
+// 分量太多时只保存拓扑序和区间标签，二者都是可达的必要条件，可以 O(1) 排除大部分不可达的单词对
+public class ReachabilityIndex {
+    // 传递闭包位图最多占用的 long 个数（32 MB）
+    private static final long MAX_CLOSURE_WORDS = 1L << 22;
+
+    private final CompactGraph graph;
+    // 节点所属的分量；Tarjan 先完成汇点分量，因此跨分量的边总是从编号大的分量指向编号小的分量
+    private final int[] component;
+    private final int componentCount;
+    // 缩点图的 CSR 邻接表，边已去重
+    private final int[] componentOffsets;
+    private final int[] componentTargets;
+    // 缩点图后序遍历的编号，以及所有后代中的最小编号
+    private final int[] post;
+    private final int[] low;
+    // 传递闭包，第 c 行是分量 c 可达的分量集合；分量太多时为 null
+    private final long[] closure;
+    private final int closureWords;
+
+    public ReachabilityIndex(CompactGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.component = new int[n];
+        this.componentCount = strongComponents();
+
+        // 按分量分组节点，再为每个分量收集去重后的出边
+        int[] memberOffsets = new int[componentCount + 1];
+        for (int node = 0; node < n; node++) {
+            memberOffsets[component[node] + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, componentCount);
+        for (int node = 0; node < n; node++) {
+            members[fill[component[node]]++] = node;
+        }
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] seen = new int[componentCount];
+        this.componentOffsets = new int[componentCount + 1];
+        int[] edges = new int[16];
+        int edgeCount = 0;
+        for (int c = 0; c < componentCount; c++) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int node = members[m];
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int d = component[targets[e]];
+                    if (d != c && seen[d] != c + 1) {
+                        seen[d] = c + 1;
+                        if (edgeCount == edges.length) {
+                            edges = Arrays.copyOf(edges, edgeCount * 2);
+                        }
+                        edges[edgeCount++] = d;
+                    }
+                }
+            }
+            componentOffsets[c + 1] = edgeCount;
+        }
+        this.componentTargets = Arrays.copyOf(edges, edgeCount);
+
+        this.post = new int[componentCount];
+        this.low = new int[componentCount];
+        labelIntervals();
+
+        this.closureWords = (componentCount + 63) >>> 6;
+        if ((long) componentCount * closureWords <= MAX_CLOSURE_WORDS) {
+            this.closure = new long[componentCount * closureWords];
+            // 后继分量的编号都更小，按编号升序计算时它们的闭包已经就绪
+            for (int c = 0; c < componentCount; c++) {
+                int row = c * closureWords;
+                closure[row + (c >>> 6)] |= 1L << c;
+                for (int e = componentOffsets[c]; e < componentOffsets[c + 1]; e++) {
+                    int successor = componentTargets[e] * closureWords;
+                    for (int w = 0; w < closureWords; w++) {
+                        closure[row + w] |= closure[successor + w];
+                    }
+                }
+            }
+        } else {
+            this.closure = null;
+        }
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public int component(int node) {
+        return component[node];
+    }
+
+    // 是否保存了传递闭包，即 mayReach 的结果是否精确
+    public boolean isExact() {
+        return closure != null;
+    }
+
+    // 返回 false 时 source 一定到不了 target；isExact() 为 true 时返回 true 表示一定可达
+    // 同一个分量内的节点互相可达，source 等于 target 时返回 true
+    public boolean mayReach(int source, int target) {
+        int from = component[source];
+        int to = component[target];
+        if (from == to) {
+            return true;
+        }
+        if (from < to || post[to] > post[from] || low[to] < low[from]) {
+            return false;
+        }
+        return closure == null || (closure[from * closureWords + (to >>> 6)] & (1L << to)) != 0;
+    }
+
+    // 迭代版 Tarjan，显式维护调用栈和每个节点下一条待访问的边，返回分量数
+    private int strongComponents() {
+        int n = graph.nodeCount();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] nextEdge = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        Arrays.fill(index, -1);
+        int stackSize = 0;
+        int counter = 0;
+        int count = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = lowLink[root] = counter++;
+            nextEdge[root] = offsets[root];
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (nextEdge[node] < offsets[node + 1]) {
+                    int neighbor = targets[nextEdge[node]++];
+                    if (index[neighbor] < 0) {
+                        index[neighbor] = lowLink[neighbor] = counter++;
+                        nextEdge[neighbor] = offsets[neighbor];
+                        stack[stackSize++] = neighbor;
+                        onStack[neighbor] = true;
+                        callStack[depth++] = neighbor;
+                    } else if (onStack[neighbor]) {
+                        lowLink[node] = Math.min(lowLink[node], index[neighbor]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (lowLink[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        component[member] = count;
+                    } while (member != node);
+                    count++;
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+            }
+        }
+        return count;
+    }
+
+    // 在缩点图上做迭代的后序遍历：若 a 可达 b，则 post[b] <= post[a] 且 low[a] <= low[b]
+    private void labelIntervals() {
+        int[] nextEdge = new int[componentCount];
+        int[] callStack = new int[componentCount];
+        boolean[] visited = new boolean[componentCount];
+        int counter = 0;
+        // 编号大的分量更靠近源点，从它们开始遍历
+        for (int root = componentCount - 1; root >= 0; root--) {
+            if (visited[root]) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            visited[root] = true;
+            nextEdge[root] = componentOffsets[root];
+            low[root] = Integer.MAX_VALUE;
+            while (depth > 0) {
+                int c = callStack[depth - 1];
+                if (nextEdge[c] < componentOffsets[c + 1]) {
+                    int successor = componentTargets[nextEdge[c]++];
+                    if (!visited[successor]) {
+                        visited[successor] = true;
+                        nextEdge[successor] = componentOffsets[successor];
+                        low[successor] = Integer.MAX_VALUE;
+                        callStack[depth++] = successor;
+                    } else {
+                        low[c] = Math.min(low[c], low[successor]);
+                    }
+                    continue;
+                }
+                depth--;
+                post[c] = counter++;
+                low[c] = Math.min(low[c], post[c]);
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[c]);
+                }
+            }
+        }
+    }
+}
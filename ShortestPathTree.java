@@ -0,0 +1,140 @@
+import java.util.*;
+
+// 单源最短路径树：一次 Dijkstra 求出起点到所有节点的距离和前驱，再按需回溯出每条路径
+// 距离和前驱数组在多次计算之间复用，不会为每次查询重新分配
+public class ShortestPathTree {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final CompactGraph graph;
+    private final int[] distance;
+    private final int[] previous;
+    private final IndexedMinHeap queue;
+    // 二者只有一个不为 null：默认使用索引堆，bucketQueue 为 true 时使用桶队列
+    private final BucketQueue buckets;
+    private final boolean reverse;
+    private int source = -1;
+
+    public ShortestPathTree(CompactGraph graph) {
+        this(graph, false);
+    }
+
+    // bucketQueue 为 true 时使用 Dial 桶队列，桶数等于最大边权 + 1，适合边权都很小的图
+    public ShortestPathTree(CompactGraph graph, boolean bucketQueue) {
+        this(graph, bucketQueue, false);
+    }
+
+    // reverse 为 true 时沿入边搜索：distance(node) 为 node 到起点的距离，previous(node) 为 node 路径上的下一跳
+    public ShortestPathTree(CompactGraph graph, boolean bucketQueue, boolean reverse) {
+        this.graph = graph;
+        this.reverse = reverse;
+        this.distance = new int[graph.nodeCount()];
+        this.previous = new int[graph.nodeCount()];
+        this.queue = bucketQueue ? null : new IndexedMinHeap(graph.nodeCount());
+        this.buckets = bucketQueue ? new BucketQueue(graph.nodeCount(), graph.maxWeight()) : null;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public boolean usesBucketQueue() {
+        return buckets != null;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    // 以 source 为起点计算完整的最短路径树
+    public void compute(int source) {
+        compute(source, -1);
+    }
+
+    // 只需要到 target 的路径时，target 出队后即停止，此时只有 target 及更近节点的结果是确定的
+    public void compute(int source, int target) {
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(previous, -1);
+        this.source = source;
+        distance[source] = 0;
+        if (buckets != null) {
+            computeWithBuckets(source, target);
+            return;
+        }
+        int[] offsets = reverse ? graph.getInOffsets() : graph.getOffsets();
+        int[] targets = reverse ? graph.getInSources() : graph.getTargets();
+        int[] weights = reverse ? graph.getInWeights() : graph.getWeights();
+        queue.clear();
+        queue.offer(source, 0);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (node == target) {
+                break;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                int newDistance = distance[node] + weights[e];
+                if (newDistance < distance[neighbor]) {
+                    distance[neighbor] = newDistance;
+                    previous[neighbor] = node;
+                    queue.offer(neighbor, newDistance);
+                }
+            }
+        }
+    }
+
+    private void computeWithBuckets(int source, int target) {
+        int[] offsets = reverse ? graph.getInOffsets() : graph.getOffsets();
+        int[] targets = reverse ? graph.getInSources() : graph.getTargets();
+        int[] weights = reverse ? graph.getInWeights() : graph.getWeights();
+        buckets.clear();
+        buckets.offer(source, 0);
+        while (!buckets.isEmpty()) {
+            int node = buckets.poll();
+            if (node == target) {
+                break;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                int newDistance = distance[node] + weights[e];
+                if (newDistance < distance[neighbor]) {
+                    distance[neighbor] = newDistance;
+                    previous[neighbor] = node;
+                    buckets.offer(neighbor, newDistance);
+                }
+            }
+        }
+    }
+
+    // 起点到 node 的最短距离，不可达时为 UNREACHABLE
+    public int distance(int node) {
+        return distance[node];
+    }
+
+    public int previous(int node) {
+        return previous[node];
+    }
+
+    // 距离和前驱数组供全源最短路径批量拷贝，调用方不得修改
+    int[] distances() {
+        return distance;
+    }
+
+    int[] predecessors() {
+        return previous;
+    }
+
+    // 起点到 node 的路径（单词列表，反向树中为 node 到起点），不可达或 node 就是起点时返回 null
+    public List<String> path(int node) {
+        if (previous[node] < 0) {
+            return null;
+        }
+        List<String> path = new ArrayList<>();
+        for (int at = node; at >= 0; at = previous[at]) {
+            path.add(graph.word(at));
+        }
+        if (!reverse) {
+            Collections.reverse(path);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,226 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class TestAsyncOutputSink {
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("sink");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    //多个线程同时对同一个文件调用 shared，得到的是同一个实例，全部 close 之后才关闭
+    @Test
+    public void testSharedFromManyThreads() throws Exception {
+        Path file = directory.resolve("walks.txt");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<AsyncOutputSink>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    final int id = i;
+                    futures.add(executor.submit((Callable<AsyncOutputSink>) () -> {
+                        start.await();
+                        AsyncOutputSink sink = AsyncOutputSink.shared(file);
+                        sink.write("line " + id);
+                        return sink;
+                    }));
+                }
+                start.countDown();
+                List<AsyncOutputSink> sinks = new ArrayList<>();
+                for (Future<AsyncOutputSink> future : futures) {
+                    sinks.add(future.get());
+                }
+                for (AsyncOutputSink sink : sinks) {
+                    assertSame(sinks.get(0), sink);
+                }
+                for (AsyncOutputSink sink : sinks) {
+                    sink.close();
+                }
+                // 最后一个引用释放后文件已经不在登记中，可以再新建
+                new AsyncOutputSink(file).close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(200 * threads, Files.readAllLines(file).size());
+    }
+
+    private static List<String> readGzip(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> records(int from, int to) {
+        List<String> records = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            records.add(String.format("record-%02d", i));
+        }
+        return records;
+    }
+
+    private static void writeAll(AsyncOutputSink sink, List<String> records) throws IOException {
+        for (String record : records) {
+            sink.write(record);
+        }
+    }
+
+    //共用的输出只在最后一次 close 时关闭，之前的 close 不影响其他调用方继续写
+    @Test
+    public void testReferenceCount() throws Exception {
+        Path file = directory.resolve("shared.txt");
+        AsyncOutputSink first = AsyncOutputSink.shared(file);
+        AsyncOutputSink second = AsyncOutputSink.shared(file);
+        assertSame(first, second);
+        first.write("a");
+        first.close();
+        second.write("b");
+        second.flush();
+        assertEquals(Arrays.asList("a", "b"), Files.readAllLines(file));
+        second.close();
+        try {
+            second.write("c");
+            fail("关闭后仍能写入");
+        } catch (IOException expected) {
+            // 最后一个引用释放后输出已关闭
+        }
+        assertNotSame(first, AsyncOutputSink.shared(file));
+        AsyncOutputSink.shared(file).close();
+    }
+
+    //同一个文件上不能直接新建第二个输出
+    @Test(expected = IllegalStateException.class)
+    public void testSecondWriterRejected() throws Exception {
+        Path file = directory.resolve("single.txt");
+        AsyncOutputSink sink = new AsyncOutputSink(file);
+        try {
+            new AsyncOutputSink(file);
+        } finally {
+            sink.close();
+        }
+    }
+
+    //重新打开已有的文件时接在原有内容后面写
+    @Test
+    public void testAppendToExistingFile() throws Exception {
+        Path file = directory.resolve("append.txt");
+        Files.write(file, "existing\n".getBytes(StandardCharsets.UTF_8));
+        try (AsyncOutputSink sink = new AsyncOutputSink(file)) {
+            writeAll(sink, records(0, 3));
+        }
+        try (AsyncOutputSink sink = new AsyncOutputSink(file)) {
+            writeAll(sink, records(3, 5));
+        }
+        List<String> expected = new ArrayList<>();
+        expected.add("existing");
+        expected.addAll(records(0, 5));
+        assertEquals(expected, Files.readAllLines(file));
+    }
+
+    //gzip 输出可以用 GZIPInputStream 读回，追加的内容是新的 gzip 成员，读回时接在一起
+    @Test
+    public void testGzip() throws Exception {
+        Path file = directory.resolve("walks.txt");
+        try (AsyncOutputSink sink = new AsyncOutputSink(file, 4, true, 0)) {
+            assertEquals(directory.resolve("walks.txt.gz"), sink.currentFile());
+            writeAll(sink, records(0, 50));
+        }
+        assertEquals(records(0, 50), readGzip(directory.resolve("walks.txt.gz")));
+        try (AsyncOutputSink sink = new AsyncOutputSink(file, 4, true, 0)) {
+            writeAll(sink, records(50, 60));
+        }
+        assertFalse(Files.exists(file));
+        assertEquals(records(0, 60), readGzip(directory.resolve("walks.txt.gz")));
+    }
+
+    //写满轮转大小后换文件；重新打开时从已有的最后一个文件接着写，并计入它已有的大小
+    @Test
+    public void testRotationResumesAtLastPart() throws Exception {
+        Path file = directory.resolve("walks.txt");
+        // 每条记录连同换行 10 字节，每个文件最多 10 条
+        long rotateBytes = 100;
+        try (AsyncOutputSink sink = new AsyncOutputSink(file, 8, false, rotateBytes)) {
+            writeAll(sink, records(0, 25));
+        }
+        assertEquals(records(0, 10), Files.readAllLines(file));
+        assertEquals(records(10, 20), Files.readAllLines(directory.resolve("walks-1.txt")));
+        assertEquals(records(20, 25), Files.readAllLines(directory.resolve("walks-2.txt")));
+
+        try (AsyncOutputSink sink = new AsyncOutputSink(file, 8, false, rotateBytes)) {
+            assertEquals(directory.resolve("walks-2.txt"), sink.currentFile());
+            writeAll(sink, records(25, 31));
+            sink.flush();
+            assertEquals(directory.resolve("walks-3.txt"), sink.currentFile());
+        }
+        assertEquals(records(20, 30), Files.readAllLines(directory.resolve("walks-2.txt")));
+        assertEquals(records(30, 31), Files.readAllLines(directory.resolve("walks-3.txt")));
+        assertEquals(100, Files.size(directory.resolve("walks-2.txt")));
+    }
+
+    //后台线程退出后 write 和 flush 都抛出异常，而不是把记录丢进没人取的队列或一直等待
+    @Test
+    public void testDeadWriterFails() throws Exception {
+        Path file = directory.resolve("dead.txt");
+        AsyncOutputSink sink = new AsyncOutputSink(file, 1, false, 0);
+        sink.write("before");
+        sink.flush();
+        Thread writer = null;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("AsyncOutputSink-dead.txt")) {
+                writer = thread;
+            }
+        }
+        assertNotNull(writer);
+        writer.interrupt();
+        writer.join();
+        try {
+            sink.write("after");
+            fail("后台线程退出后仍能写入");
+        } catch (IOException expected) {
+            // 后台写出线程已经退出
+        }
+        try {
+            sink.flush();
+            fail("后台线程退出后 flush 没有失败");
+        } catch (IOException expected) {
+            // 后台写出线程已经退出
+        }
+        sink.close();
+        assertEquals(Arrays.asList("before"), Files.readAllLines(file));
+    }
+}
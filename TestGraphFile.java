@@ -0,0 +1,103 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestGraphFile {
+    private static final String CORPUS_PATH = "Cursed Be The Treasure.txt";
+    private Path directory;
+    private String firstPart;
+    private String secondPart;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("graphfile");
+        // 语料按行分成前后两半，用来模拟先保存再追加
+        List<String> lines = Files.readAllLines(Paths.get(CORPUS_PATH), StandardCharsets.ISO_8859_1);
+        int middle = lines.size() / 2;
+        firstPart = String.join("\n", lines.subList(0, middle));
+        secondPart = String.join("\n", lines.subList(middle, lines.size()));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    //写出后读回得到相同的图
+    @Test
+    public void testRoundTrip() throws Exception {
+        TextGraph graph = new TextGraph();
+        graph.buildGraph(CORPUS_PATH);
+        Path file = directory.resolve("graph.bin");
+        GraphFile.write(graph, file);
+        TestParallelBuild.assertSameGraph(graph, GraphFile.read(file));
+    }
+
+    //读回后继续追加，与一直在内存中追加的结果相同，包括两段文本交界处的边
+    @Test
+    public void testAppendAfterRead() throws Exception {
+        TextGraph expected = new TextGraph();
+        expected.append(new StringReader(firstPart), false);
+        expected.append(new StringReader(secondPart), true);
+
+        TextGraph saved = new TextGraph();
+        saved.append(new StringReader(firstPart), false);
+        Path file = directory.resolve("graph.bin");
+        GraphFile.write(saved, file);
+        TextGraph loaded = GraphFile.read(file);
+        loaded.append(new StringReader(secondPart), true);
+        TestParallelBuild.assertSameGraph(expected, loaded);
+    }
+
+    //外存构建在很小的内存预算下（多轮归并）也得到相同的图
+    @Test
+    public void testExternalBuilderMatchesInMemory() throws Exception {
+        TextGraph expected = new TextGraph();
+        expected.buildGraph(CORPUS_PATH);
+        expected.appendFile("Easy Test.txt", true);
+        for (long budget : new long[]{8 << 10, 64 << 20}) {
+            Path work = Files.createDirectory(directory.resolve("work" + budget));
+            ExternalGraphBuilder builder = new ExternalGraphBuilder(work, budget);
+            builder.appendFile(CORPUS_PATH, false);
+            builder.appendFile("Easy Test.txt", true);
+            Path file = directory.resolve("external" + budget + ".bin");
+            builder.writeGraph(file);
+            TestParallelBuild.assertSameGraph(expected, GraphFile.read(file));
+            try (Stream<Path> left = Files.list(work)) {
+                assertEquals(0, left.count());
+            }
+        }
+    }
+
+    //不认识的版本号
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownVersion() throws Exception {
+        TextGraph graph = new TextGraph();
+        graph.buildGraph("test.txt");
+        Path file = directory.resolve("graph.bin");
+        GraphFile.write(graph, file);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(Integer.BYTES);
+            raw.writeInt(99);
+        }
+        GraphFile.read(file);
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TestIncrementalPageRank {
+    private static final String CORPUS_PATH = "Cursed Be The Treasure.txt";
+    // 追加的文本：既有已有的单词，也有语料中没有的单词
+    private static final String[] APPENDS = {
+            "the treasure was cursed and the gold was gone",
+            "zyxwv qwerty the captain said nothing about qwerty",
+            "jenny and tommy went down to the cave again",
+            "plover quagga the plover saw a quagga near the cave",
+    };
+    private TextGraph textGraph;
+
+    @Before
+    public void setUp() throws Exception {
+        textGraph = new TextGraph();
+        textGraph.buildGraph(CORPUS_PATH);
+    }
+
+    // 几乎精确的不动点
+    private static double[] exact(CompactGraph graph) {
+        PageRankEngine engine = new PageRankEngine(graph);
+        engine.setMethod(PageRankEngine.Method.GAUSS_SEIDEL);
+        engine.setConvergence(PageRankEngine.Convergence.L1_NORM);
+        engine.setTolerance(1e-13);
+        engine.setMaxIterations(5000);
+        double[] initial = new double[graph.nodeCount()];
+        Arrays.fill(initial, 1.0 / graph.nodeCount());
+        return engine.solve(initial).ranks();
+    }
+
+    private static double distance(double[] a, double[] b) {
+        assertEquals(a.length, b.length);
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return sum;
+    }
+
+    //每次追加后与精确解的 L1 误差都不超过报告的误差界，残差满足收敛判据
+    @Test
+    public void testErrorBoundAfterAppend() throws Exception {
+        for (PageRankEngine.Convergence convergence : PageRankEngine.Convergence.values()) {
+            setUp();
+            double tolerance = convergence == PageRankEngine.Convergence.L1_NORM ? 1e-6 : 1e-7;
+            CompactGraph graph = textGraph.freeze();
+            IncrementalPageRank incremental = new IncrementalPageRank(graph, exact(graph), 0.85,
+                    PageRankEngine.DanglingPolicy.DAMPED_UNIFORM, convergence, tolerance);
+            for (String text : APPENDS) {
+                textGraph.append(new StringReader(text), true);
+                CompactGraph grown = textGraph.freeze();
+                incremental.update(grown, textGraph.edgesSince(incremental.getGraph()));
+                double error = distance(incremental.ranks(), exact(grown));
+                assertTrue(convergence + " 误差 " + error + " 超过误差界 " + incremental.errorBound(),
+                        error <= incremental.errorBound() + 1e-12);
+                assertTrue(incremental.residual() <= tolerance);
+            }
+        }
+    }
+
+    //每次追加后在上一个快照上归并新增的边，结果与从完整边表一次性构建的快照相同，已有边的权重也是最新的
+    @Test
+    public void testFreezeAfterAppendMatchesRebuild() throws Exception {
+        textGraph.freeze();
+        for (int i = 0; i < APPENDS.length; i++) {
+            textGraph.append(new StringReader(APPENDS[i]), true);
+            TextGraph rebuilt = new TextGraph();
+            rebuilt.buildGraph(CORPUS_PATH);
+            for (int j = 0; j <= i; j++) {
+                rebuilt.append(new StringReader(APPENDS[j]), true);
+            }
+            TestParallelBuild.assertSameGraph(rebuilt, textGraph);
+        }
+    }
+
+    //GraphOperations 开启增量模式后的结果与完整迭代的结果一致
+    @Test
+    public void testGraphOperationsIncremental() throws Exception {
+        GraphOperations operations = new GraphOperations(textGraph, null);
+        operations.setPageRankConvergence(PageRankEngine.Convergence.L1_NORM, 1e-8);
+        operations.setIncrementalPageRank(true);
+        operations.getPageRankResult();
+        for (String text : APPENDS) {
+            textGraph.append(new StringReader(text), true);
+            PageRankEngine.Result result = operations.getPageRankResult();
+            assertTrue(result.converged());
+            assertEquals(0.0, distance(result.ranks(), exact(textGraph.freeze())), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestKShortestPaths {
+
+    // n 个节点的随机有向图，边权为 1 到 3
+    private static CompactGraph randomGraph(Random random, int n) {
+        Vocabulary vocabulary = new Vocabulary();
+        for (int i = 0; i < n; i++) {
+            vocabulary.intern("w" + i);
+        }
+        LongIntHashMap edges = new LongIntHashMap();
+        int edgeCount = n * 2 + random.nextInt(n * 2);
+        for (int i = 0; i < edgeCount; i++) {
+            edges.addTo(TextGraph.edgeKey(random.nextInt(n), random.nextInt(n)), 1 + random.nextInt(3));
+        }
+        return CompactGraph.build(vocabulary, edges);
+    }
+
+    // 穷举 source 到 target 的所有无环路径的长度
+    private static void enumerate(CompactGraph graph, int node, int target, boolean[] onPath, long length,
+                                  List<Long> lengths) {
+        if (node == target) {
+            lengths.add(length);
+            return;
+        }
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] weights = graph.getWeights();
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            int next = targets[e];
+            if (!onPath[next]) {
+                onPath[next] = true;
+                enumerate(graph, next, target, onPath, length + weights[e], lengths);
+                onPath[next] = false;
+            }
+        }
+    }
+
+    //与穷举所有无环路径后排序的结果一致
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(4);
+        for (int trial = 0; trial < 200; trial++) {
+            CompactGraph graph = randomGraph(random, 4 + random.nextInt(8));
+            KShortestPaths search = new KShortestPaths(graph);
+            for (int query = 0; query < 10; query++) {
+                int source = random.nextInt(graph.nodeCount());
+                int target = random.nextInt(graph.nodeCount());
+                if (source == target) {
+                    continue;
+                }
+                List<Long> expected = new ArrayList<>();
+                boolean[] onPath = new boolean[graph.nodeCount()];
+                onPath[source] = true;
+                enumerate(graph, source, target, onPath, 0, expected);
+                Collections.sort(expected);
+
+                int k = 1 + random.nextInt(30);
+                List<KShortestPaths.Path> paths = search.compute(source, target, k);
+                assertEquals(Math.min(k, expected.size()), paths.size());
+                Set<String> distinct = new HashSet<>();
+                for (int i = 0; i < paths.size(); i++) {
+                    KShortestPaths.Path path = paths.get(i);
+                    assertEquals((long) expected.get(i), path.length());
+                    assertValidPath(graph, source, target, path);
+                    assertTrue(distinct.add(Arrays.toString(path.nodes())));
+                }
+            }
+        }
+    }
+
+    // 路径从 source 到 target、沿着图中的边、没有重复节点，长度等于边权之和
+    private static void assertValidPath(CompactGraph graph, int source, int target, KShortestPaths.Path path) {
+        int[] nodes = path.nodes();
+        assertEquals(source, nodes[0]);
+        assertEquals(target, nodes[nodes.length - 1]);
+        Set<Integer> seen = new HashSet<>();
+        long length = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            assertTrue(seen.add(nodes[i]));
+            if (i > 0) {
+                int weight = graph.weight(nodes[i - 1], nodes[i]);
+                assertTrue(weight > 0);
+                length += weight;
+            }
+        }
+        assertEquals(length, path.length());
+    }
+
+    //终点不可达时没有路径
+    @Test
+    public void testUnreachable() {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.intern("a");
+        vocabulary.intern("b");
+        LongIntHashMap edges = new LongIntHashMap();
+        edges.addTo(TextGraph.edgeKey(1, 0), 1);
+        CompactGraph graph = CompactGraph.build(vocabulary, edges);
+        assertTrue(new KShortestPaths(graph).compute(0, 1, 3).isEmpty());
+    }
+}
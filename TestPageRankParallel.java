@@ -0,0 +1,69 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TestPageRankParallel {
+    private static final String CORPUS_PATH = "Cursed Be The Treasure.txt";
+    private static final int BLOCKS = 16;
+    private CompactGraph graph;
+    private double[] initial;
+
+    @Before
+    public void setUp() throws Exception {
+        TextGraph textGraph = new TextGraph();
+        textGraph.buildGraph(CORPUS_PATH);
+        graph = textGraph.freeze();
+        initial = new double[graph.nodeCount()];
+        Arrays.fill(initial, 1.0 / graph.nodeCount());
+    }
+
+    private PageRankEngine.Result solve(ForkJoinPool pool, int blocks, PageRankEngine.Convergence convergence) {
+        PageRankEngine engine = new PageRankEngine(graph);
+        engine.setParallelism(pool, blocks);
+        engine.setConvergence(convergence);
+        engine.setTolerance(1e-10);
+        return engine.solve(initial);
+    }
+
+    //分块数相同时，不论线程数多少结果都逐位相同
+    @Test
+    public void testBitIdenticalAcrossThreadCounts() {
+        for (PageRankEngine.Convergence convergence : PageRankEngine.Convergence.values()) {
+            PageRankEngine.Result expected = null;
+            for (int threads = 1; threads <= 4; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    PageRankEngine.Result result = solve(pool, BLOCKS, convergence);
+                    if (expected == null) {
+                        expected = result;
+                        continue;
+                    }
+                    assertEquals(expected.iterations(), result.iterations());
+                    for (int node = 0; node < graph.nodeCount(); node++) {
+                        assertEquals(Double.doubleToLongBits(expected.ranks()[node]),
+                                Double.doubleToLongBits(result.ranks()[node]));
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    //并行结果与单线程结果只差舍入误差
+    @Test
+    public void testMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            double[] sequential = solve(null, 0, PageRankEngine.Convergence.L1_NORM).ranks();
+            double[] parallel = solve(pool, BLOCKS, PageRankEngine.Convergence.L1_NORM).ranks();
+            assertArrayEquals(sequential, parallel, 1e-12);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
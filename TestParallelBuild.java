@@ -0,0 +1,110 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TestParallelBuild {
+    private static final String CORPUS_PATH = "Cursed Be The Treasure.txt";
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    // 单词编号、CSR 数组和语料统计都相同
+    static void assertSameGraph(TextGraph expected, TextGraph actual) {
+        CompactGraph a = expected.freeze();
+        CompactGraph b = actual.freeze();
+        assertEquals(a.nodeCount(), b.nodeCount());
+        for (int id = 0; id < a.nodeCount(); id++) {
+            assertEquals(a.word(id), b.word(id));
+        }
+        assertArrayEquals(a.getOffsets(), b.getOffsets());
+        assertArrayEquals(a.getTargets(), b.getTargets());
+        assertArrayEquals(a.getWeights(), b.getWeights());
+        CorpusStatistics sa = expected.getStatistics();
+        CorpusStatistics sb = actual.getStatistics();
+        assertEquals(sa.totalTerms(), sb.totalTerms());
+        assertEquals(sa.documentCount(), sb.documentCount());
+        for (int id = 0; id < a.nodeCount(); id++) {
+            assertEquals(sa.termCount(id), sb.termCount(id));
+            assertEquals(sa.documentFrequency(id), sb.documentFrequency(id));
+        }
+        assertEquals(expected.previousWord(), actual.previousWord());
+    }
+
+    //真实语料上并行构建与顺序构建结果一致
+    @Test
+    public void testCorpusMatchesSequential() throws Exception {
+        TextGraph sequential = new TextGraph();
+        sequential.buildGraph(CORPUS_PATH);
+        for (int threads = 1; threads <= 4; threads *= 2) {
+            ForkJoinPool threadPool = new ForkJoinPool(threads);
+            try {
+                TextGraph parallel = new TextGraph();
+                parallel.appendFileParallel(CORPUS_PATH, false, threadPool);
+                assertSameGraph(sequential, parallel);
+            } finally {
+                threadPool.shutdown();
+            }
+        }
+    }
+
+    //文件大到切成多个区间时，跨区间的边也要保留
+    @Test
+    public void testMultipleChunks() throws Exception {
+        File file = File.createTempFile("parallel", ".txt");
+        try {
+            byte[] corpus = Files.readAllBytes(Paths.get(CORPUS_PATH));
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                for (int i = 0; i < 5; i++) {
+                    out.write(corpus);
+                }
+            }
+            TextGraph sequential = new TextGraph();
+            sequential.buildGraph(file.getPath());
+            TextGraph parallel = new TextGraph();
+            parallel.appendFileParallel(file.getPath(), false, pool);
+            assertSameGraph(sequential, parallel);
+        } finally {
+            file.delete();
+        }
+    }
+
+    //追加到已有的图并与上一个文档相连
+    @Test
+    public void testAppendLinkedToPrevious() throws Exception {
+        TextGraph sequential = new TextGraph();
+        sequential.buildGraph("test.txt");
+        sequential.appendFile("Easy Test.txt", true);
+        TextGraph parallel = new TextGraph();
+        parallel.buildGraph("test.txt");
+        parallel.appendFileParallel("Easy Test.txt", true, pool);
+        assertSameGraph(sequential, parallel);
+    }
+
+    //buildGraphParallel 每次都开始一个新文档
+    @Test
+    public void testBuildGraphParallelStartsNewDocument() throws Exception {
+        TextGraph sequential = new TextGraph();
+        sequential.buildGraph("test.txt");
+        sequential.buildGraph("Easy Test.txt");
+        TextGraph parallel = new TextGraph();
+        parallel.buildGraphParallel("test.txt");
+        parallel.buildGraphParallel("Easy Test.txt");
+        assertSameGraph(sequential, parallel);
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestPersonalizedPageRank {
+    private static final String CORPUS_PATH = "Cursed Be The Treasure.txt";
+    private static final double DAMPING = 0.85;
+    private CompactGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        TextGraph textGraph = new TextGraph();
+        textGraph.buildGraph(CORPUS_PATH);
+        graph = textGraph.freeze();
+    }
+
+    // 幂迭代求精确解：每步以 1 - d 跳回种子分布，悬挂节点的质量也回到种子
+    private double[] exact(int[] seeds, double[] distribution) {
+        int n = graph.nodeCount();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] x = new double[n];
+        for (int i = 0; i < seeds.length; i++) {
+            x[seeds[i]] += distribution[i];
+        }
+        for (int iteration = 0; iteration < 300; iteration++) {
+            double[] next = new double[n];
+            double dangling = 0;
+            for (int node = 0; node < n; node++) {
+                int outDegree = offsets[node + 1] - offsets[node];
+                if (outDegree == 0) {
+                    dangling += x[node];
+                    continue;
+                }
+                double share = DAMPING * x[node] / outDegree;
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    next[targets[e]] += share;
+                }
+            }
+            for (int i = 0; i < seeds.length; i++) {
+                next[seeds[i]] += ((1 - DAMPING) + DAMPING * dangling) * distribution[i];
+            }
+            x = next;
+        }
+        return x;
+    }
+
+    // 推送的估计值只会偏小，总误差等于剩余残差之和
+    private void assertWithinResidual(PersonalizedPageRank.Result result, double[] expected) {
+        double[] actual = new double[graph.nodeCount()];
+        for (int i = 0; i < result.size(); i++) {
+            actual[result.node(i)] = result.score(i);
+        }
+        double error = 0;
+        for (int node = 0; node < actual.length; node++) {
+            assertTrue(actual[node] <= expected[node] + 1e-12);
+            error += expected[node] - actual[node];
+        }
+        assertTrue("误差 " + error + " 超过剩余残差 " + result.residualMass(),
+                error <= result.residualMass() + 1e-9);
+    }
+
+    //只做推送时每个单词的误差不超过剩余残差之和，阈值越小残差越小
+    @Test
+    public void testPushWithinResidualMass() {
+        PersonalizedPageRank ppr = new PersonalizedPageRank(graph);
+        int[] seeds = {0, graph.nodeCount() / 2, graph.nodeCount() - 1};
+        for (int seed : seeds) {
+            double[] expected = exact(new int[]{seed}, new double[]{1.0});
+            double previous = Double.MAX_VALUE;
+            for (double threshold = 1e-3; threshold >= 1e-7; threshold /= 10) {
+                ppr.setPushThreshold(threshold);
+                PersonalizedPageRank.Result result = ppr.compute(seed);
+                assertEquals(0, result.walks());
+                assertWithinResidual(result, expected);
+                assertTrue(result.residualMass() <= previous);
+                previous = result.residualMass();
+            }
+        }
+    }
+
+    //加权种子集合与归一化后的种子分布一致，重复的种子权重相加
+    @Test
+    public void testWeightedSeeds() {
+        PersonalizedPageRank ppr = new PersonalizedPageRank(graph);
+        ppr.setPushThreshold(1e-7);
+        int[] seeds = {1, 5, 1};
+        PersonalizedPageRank.Result result = ppr.compute(seeds, new double[]{1, 2, 1});
+        assertWithinResidual(result, exact(seeds, new double[]{0.25, 0.5, 0.25}));
+    }
+
+    //top 按得分降序返回下标，得分相同时节点 id 小的在前
+    @Test
+    public void testTopOrder() {
+        PersonalizedPageRank ppr = new PersonalizedPageRank(graph);
+        PersonalizedPageRank.Result result = ppr.compute(0);
+        int[] top = result.top(20);
+        assertEquals(Math.min(20, result.size()), top.length);
+        for (int i = 1; i < top.length; i++) {
+            double before = result.score(top[i - 1]);
+            double after = result.score(top[i]);
+            assertTrue(before > after || before == after && result.node(top[i - 1]) < result.node(top[i]));
+        }
+        for (int i = 0; i < result.size(); i++) {
+            assertTrue(result.score(i) <= result.score(top[top.length - 1]) || contains(top, i));
+        }
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int element : array) {
+            if (element == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,313 @@
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TestShortestPaths {
+    private static final int TRIALS = 300;
+
+    // n 个节点、edgeCount 条随机边的有向图，边权为 1 到 maxWeight；边少时会有不可达的单词对
+    private static CompactGraph randomGraph(Random random, int n, int edgeCount, int maxWeight) {
+        Vocabulary vocabulary = new Vocabulary();
+        for (int i = 0; i < n; i++) {
+            vocabulary.intern("w" + i);
+        }
+        LongIntHashMap edges = new LongIntHashMap();
+        for (int i = 0; i < edgeCount; i++) {
+            edges.addTo(TextGraph.edgeKey(random.nextInt(n), random.nextInt(n)), 1 + random.nextInt(maxWeight));
+        }
+        return CompactGraph.build(vocabulary, edges);
+    }
+
+    private static CompactGraph randomGraph(Random random) {
+        int n = 2 + random.nextInt(30);
+        return randomGraph(random, n, random.nextInt(n * 3), 1 + random.nextInt(6));
+    }
+
+    // Bellman-Ford，只用来对照
+    private static int[] referenceDistances(CompactGraph graph, int source) {
+        int[] distance = new int[graph.nodeCount()];
+        Arrays.fill(distance, ShortestPathTree.UNREACHABLE);
+        distance[source] = 0;
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] weights = graph.getWeights();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                if (distance[node] == ShortestPathTree.UNREACHABLE) {
+                    continue;
+                }
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    if (distance[node] + weights[e] < distance[targets[e]]) {
+                        distance[targets[e]] = distance[node] + weights[e];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+
+    // 路径从 source 到 target、沿着图中的边，长度等于 length
+    private static void assertValidPath(CompactGraph graph, int source, int target, List<String> path, int length) {
+        assertNotNull(path);
+        assertEquals(source, graph.id(path.get(0)));
+        assertEquals(target, graph.id(path.get(path.size() - 1)));
+        long sum = 0;
+        for (int i = 1; i < path.size(); i++) {
+            int weight = graph.weight(graph.id(path.get(i - 1)), graph.id(path.get(i)));
+            assertTrue(weight > 0);
+            sum += weight;
+        }
+        assertEquals(length, sum);
+    }
+
+    //单源最短路径树与 Bellman-Ford 一致，双向搜索的距离和路径与之一致
+    @Test
+    public void testBidirectionalMatchesDijkstra() {
+        Random random = new Random(12);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            CompactGraph graph = randomGraph(random);
+            ShortestPathTree tree = new ShortestPathTree(graph);
+            BidirectionalSearch search = new BidirectionalSearch(graph);
+            for (int source = 0; source < graph.nodeCount(); source++) {
+                tree.compute(source);
+                int[] expected = referenceDistances(graph, source);
+                for (int target = 0; target < graph.nodeCount(); target++) {
+                    assertEquals(expected[target], tree.distance(target));
+                    if (target == source) {
+                        continue;
+                    }
+                    int distance = search.search(source, target);
+                    assertEquals(expected[target], distance);
+                    if (distance == ShortestPathTree.UNREACHABLE) {
+                        assertNull(search.path());
+                    } else {
+                        assertValidPath(graph, source, target, search.path(), distance);
+                        assertValidPath(graph, source, target, tree.path(target), distance);
+                    }
+                }
+            }
+        }
+    }
+
+    //桶队列版的最短路径树与 Bellman-Ford 一致，包括到终点即停止和沿入边搜索两种用法
+    @Test
+    public void testBucketQueueMatchesDijkstra() {
+        Random random = new Random(13);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            CompactGraph graph = randomGraph(random);
+            int n = graph.nodeCount();
+            int[][] expected = new int[n][];
+            for (int source = 0; source < n; source++) {
+                expected[source] = referenceDistances(graph, source);
+            }
+            ShortestPathTree tree = new ShortestPathTree(graph, true);
+            ShortestPathTree reverse = new ShortestPathTree(graph, true, true);
+            for (int source = 0; source < n; source++) {
+                tree.compute(source);
+                reverse.compute(source);
+                for (int node = 0; node < n; node++) {
+                    assertEquals(expected[source][node], tree.distance(node));
+                    assertEquals(expected[node][source], reverse.distance(node));
+                }
+                int target = random.nextInt(n);
+                tree.compute(source, target);
+                assertEquals(expected[source][target], tree.distance(target));
+                if (target != source && tree.distance(target) != ShortestPathTree.UNREACHABLE) {
+                    assertValidPath(graph, source, target, tree.path(target), tree.distance(target));
+                }
+            }
+        }
+    }
+
+    //按 Dijkstra 的用法随机插入和减小距离，每次弹出的都是距离最小的节点，距离跨过桶数时也一样
+    @Test
+    public void testBucketQueuePollsMinimum() {
+        Random random = new Random(13);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            int n = 1 + random.nextInt(40);
+            int maxWeight = 1 + random.nextInt(8);
+            BucketQueue queue = new BucketQueue(n, maxWeight);
+            // 每一轮都从 clear 之后重新开始，检查清空后的状态
+            for (int round = 0; round < 3; round++) {
+                queue.clear();
+                int[] key = new int[n];
+                Arrays.fill(key, -1);
+                int first = random.nextInt(n);
+                key[first] = random.nextInt(100);
+                queue.offer(first, key[first]);
+                while (!queue.isEmpty()) {
+                    int node = queue.poll();
+                    int minimum = Integer.MAX_VALUE;
+                    for (int other = 0; other < n; other++) {
+                        if (key[other] >= 0) {
+                            minimum = Math.min(minimum, key[other]);
+                        }
+                    }
+                    assertEquals(minimum, key[node]);
+                    assertFalse(queue.contains(node));
+                    int current = key[node];
+                    key[node] = -1;
+                    // 弹出的节点“松弛”几个邻居：新节点入队，或已在队列中的节点减小距离
+                    for (int i = random.nextInt(4); i > 0; i--) {
+                        int neighbor = random.nextInt(n);
+                        int newKey = current + random.nextInt(maxWeight + 1);
+                        if (neighbor != node && (key[neighbor] < 0 || newKey < key[neighbor])) {
+                            queue.offer(neighbor, newKey);
+                            key[neighbor] = newKey;
+                        }
+                    }
+                }
+                for (int node = 0; node < n; node++) {
+                    assertEquals(-1, key[node]);
+                }
+            }
+        }
+    }
+
+    // 从 source 出发能到达的节点
+    private static boolean[] reachable(CompactGraph graph, int source) {
+        boolean[] seen = new boolean[graph.nodeCount()];
+        int[] stack = new int[graph.nodeCount()];
+        int size = 0;
+        seen[source] = true;
+        stack[size++] = source;
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        while (size > 0) {
+            int node = stack[--size];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                if (!seen[targets[e]]) {
+                    seen[targets[e]] = true;
+                    stack[size++] = targets[e];
+                }
+            }
+        }
+        return seen;
+    }
+
+    //分量不多时可达性判定是精确的，同一个分量内的节点互相可达；带可达性索引的双向搜索结果不变
+    @Test
+    public void testReachabilityMatchesSearch() {
+        Random random = new Random(15);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            CompactGraph graph = randomGraph(random);
+            int n = graph.nodeCount();
+            boolean[][] expected = new boolean[n][];
+            for (int source = 0; source < n; source++) {
+                expected[source] = reachable(graph, source);
+            }
+            ReachabilityIndex index = new ReachabilityIndex(graph);
+            assertTrue(index.isExact());
+            BidirectionalSearch search = new BidirectionalSearch(graph, index);
+            for (int source = 0; source < n; source++) {
+                int[] distance = referenceDistances(graph, source);
+                for (int target = 0; target < n; target++) {
+                    assertEquals(expected[source][target], index.mayReach(source, target));
+                    assertEquals(expected[source][target] && expected[target][source],
+                            index.component(source) == index.component(target));
+                    if (target != source) {
+                        assertEquals(distance[target], search.search(source, target));
+                    }
+                }
+            }
+        }
+    }
+
+    //分量太多、不保存传递闭包时，可达的单词对一定不会被排除
+    @Test
+    public void testLabelsNeverRejectReachablePairs() {
+        Random random = new Random(15);
+        // 大部分边从编号小的节点指向编号大的节点，少数反向边形成一些环，分量数仍然远超传递闭包的上限
+        int n = 20000;
+        Vocabulary vocabulary = new Vocabulary();
+        for (int i = 0; i < n; i++) {
+            vocabulary.intern("w" + i);
+        }
+        LongIntHashMap edges = new LongIntHashMap();
+        for (int i = 0; i < n * 3 / 2; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            edges.addTo(TextGraph.edgeKey(Math.min(a, b), Math.max(a, b)), 1);
+        }
+        for (int i = 0; i < 200; i++) {
+            int a = random.nextInt(n);
+            edges.addTo(TextGraph.edgeKey(a, Math.max(0, a - 1 - random.nextInt(20))), 1);
+        }
+        CompactGraph graph = CompactGraph.build(vocabulary, edges);
+        ReachabilityIndex index = new ReachabilityIndex(graph);
+        assertFalse(index.isExact());
+        int rejected = 0;
+        for (int query = 0; query < 20; query++) {
+            int source = random.nextInt(n);
+            boolean[] expected = reachable(graph, source);
+            for (int target = 0; target < n; target++) {
+                boolean mayReach = index.mayReach(source, target);
+                assertTrue(!expected[target] || mayReach);
+                if (!mayReach) {
+                    rejected++;
+                }
+            }
+        }
+        assertTrue(rejected > 0);
+    }
+
+    // 第 index 个只含字母的单词：a、b、……、z、ba、bb……
+    private static String word(int index) {
+        StringBuilder word = new StringBuilder();
+        do {
+            word.append((char) ('a' + index % 26));
+            index /= 26;
+        } while (index > 0);
+        return word.reverse().toString();
+    }
+
+    //calcShortestPath 依次尝试可达性索引、全源最短路径、桶队列和双向搜索，每条路线的长度都与 Bellman-Ford 一致
+    @Test
+    public void testCalcShortestPathRoutes() throws Exception {
+        Random random = new Random(15);
+        for (int trial = 0; trial < 30; trial++) {
+            int vocabularySize = 2 + random.nextInt(40);
+            StringBuilder text = new StringBuilder();
+            for (int i = 0, words = 1 + random.nextInt(vocabularySize * 2); i < words; i++) {
+                text.append(word(random.nextInt(vocabularySize))).append(' ');
+            }
+            TextGraph textGraph = new TextGraph();
+            textGraph.append(new StringReader(text.toString()), false);
+            CompactGraph graph = textGraph.freeze();
+            GraphOperations operations = new GraphOperations(textGraph, null);
+            assertRoutesMatch(operations, graph);
+            operations.setBucketQueue(true);
+            assertRoutesMatch(operations, graph);
+            operations.precomputeAllPairs(ForkJoinPool.commonPool(), null);
+            assertRoutesMatch(operations, graph);
+        }
+    }
+
+    private static void assertRoutesMatch(GraphOperations operations, CompactGraph graph) {
+        for (int source = 0; source < graph.nodeCount(); source++) {
+            int[] distance = referenceDistances(graph, source);
+            for (int target = 0; target < graph.nodeCount(); target++) {
+                if (target == source) {
+                    continue;
+                }
+                String from = graph.word(source);
+                String to = graph.word(target);
+                String answer = operations.calcShortestPath(from, to);
+                if (distance[target] == ShortestPathTree.UNREACHABLE) {
+                    assertEquals(from + " 到 " + to + " 没有路径\n", answer);
+                } else {
+                    assertTrue(answer, answer.endsWith("(Length: " + distance[target] + ")"));
+                }
+            }
+        }
+    }
+}
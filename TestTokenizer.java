@@ -0,0 +1,95 @@
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestTokenizer {
+    private static final String CORPUS_PATH = "Cursed Be The Treasure.txt";
+
+    // 原来的做法：按行读入，按空白切分，去掉非字母字符后转小写
+    private static Map<String, Map<String, Integer>> referenceGraph(String filePath) throws Exception {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String token : line.split("\\s+")) {
+                    String word = token.replaceAll("[^a-zA-Z]", "").toLowerCase();
+                    if (!word.isEmpty()) {
+                        words.add(word);
+                    }
+                }
+            }
+        }
+        Map<String, Map<String, Integer>> graph = new HashMap<>();
+        for (String word : words) {
+            graph.putIfAbsent(word, new HashMap<>());
+        }
+        for (int i = 0; i < words.size() - 1; i++) {
+            graph.get(words.get(i)).merge(words.get(i + 1), 1, Integer::sum);
+        }
+        return graph;
+    }
+
+    private static Map<String, Map<String, Integer>> copy(Map<String, Map<String, Integer>> graph) {
+        Map<String, Map<String, Integer>> result = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : graph.entrySet()) {
+            result.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+        return result;
+    }
+
+    private static Map<String, Map<String, Integer>> build(String filePath) throws Exception {
+        TextGraph graph = new TextGraph();
+        graph.buildGraph(filePath);
+        return copy(graph.getGraph());
+    }
+
+    //真实语料上与原来的读法得到相同的图
+    @Test
+    public void testCorpusGraphUnchanged() throws Exception {
+        Map<String, Map<String, Integer>> expected = referenceGraph(CORPUS_PATH);
+        Map<String, Map<String, Integer>> actual = build(CORPUS_PATH);
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+    }
+
+    //跨行、制表符、标点和数字
+    @Test
+    public void testSeparatorsAndPunctuation() throws Exception {
+        File file = File.createTempFile("tokenizer", ".txt");
+        try {
+            String text = "Hello, world!\r\nIt's 2 o'clock\tnow...\n\n  world-wide HELLO\n";
+            Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+            assertEquals(referenceGraph(file.getPath()), build(file.getPath()));
+            Map<String, Map<String, Integer>> graph = build(file.getPath());
+            assertEquals(Integer.valueOf(1), graph.get("its").get("oclock"));
+            assertEquals(Integer.valueOf(1), graph.get("now").get("worldwide"));
+            assertFalse(graph.containsKey(""));
+        } finally {
+            file.delete();
+        }
+    }
+
+    //文件末尾没有换行时最后一个单词也要计入
+    @Test
+    public void testLastWordWithoutNewline() throws Exception {
+        File file = File.createTempFile("tokenizer", ".txt");
+        try {
+            Files.write(file.toPath(), "the end".getBytes(StandardCharsets.UTF_8));
+            Map<String, Map<String, Integer>> graph = build(file.getPath());
+            assertEquals(Integer.valueOf(1), graph.get("the").get("end"));
+            assertTrue(graph.get("end").isEmpty());
+        } finally {
+            file.delete();
+        }
+    }
+}
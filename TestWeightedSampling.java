@@ -0,0 +1,84 @@
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class TestWeightedSampling {
+    private static final int SAMPLES = 200000;
+
+    // n 个节点的随机有向图，边权为 1 到 maxWeight，个别边权很大
+    private static CompactGraph randomGraph(Random random, int n, int maxWeight) {
+        Vocabulary vocabulary = new Vocabulary();
+        for (int i = 0; i < n; i++) {
+            vocabulary.intern("w" + i);
+        }
+        LongIntHashMap edges = new LongIntHashMap();
+        for (int i = 0; i < n * 4; i++) {
+            int weight = random.nextInt(10) == 0 ? 1000 : 1 + random.nextInt(maxWeight);
+            edges.addTo(TextGraph.edgeKey(random.nextInt(n), random.nextInt(n)), weight);
+        }
+        return CompactGraph.build(vocabulary, edges);
+    }
+
+    // 抽样频率在期望概率的 5 个标准差以内
+    private static void assertFrequency(double expected, long hits, long samples) {
+        double sigma = Math.sqrt(expected * (1 - expected) / samples);
+        assertEquals(expected, (double) hits / samples, 5 * sigma + 1e-9);
+    }
+
+    //别名表抽到每条出边的频率与它占该节点出边权重之和的比例一致
+    @Test
+    public void testAliasTableMatchesWeights() {
+        Random random = new Random(24);
+        CompactGraph graph = randomGraph(random, 12, 20);
+        AliasTable table = new AliasTable(graph);
+        SplittableRandom sampler = new SplittableRandom(24);
+        int[] offsets = graph.getOffsets();
+        int[] weights = graph.getWeights();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (offsets[node] == offsets[node + 1]) {
+                assertEquals(-1, table.sampleEdge(node, sampler));
+                continue;
+            }
+            long total = 0;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                total += weights[e];
+            }
+            long[] hits = new long[graph.edgeCount()];
+            for (int i = 0; i < SAMPLES; i++) {
+                int edge = table.sampleEdge(node, sampler);
+                assertTrue(edge >= offsets[node] && edge < offsets[node + 1]);
+                hits[edge]++;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                assertFrequency((double) weights[e] / total, hits[e], SAMPLES);
+            }
+        }
+    }
+
+    //两个桥接词的二元组计数相差 3 倍时，加权抽样按乘积 9 : 1 选择，关闭加权后各占一半
+    @Test
+    public void testChooseBridgeOnSkewedPair() throws Exception {
+        TextGraph textGraph = new TextGraph();
+        textGraph.append(new StringReader("a x b a x b a x b a y b"), false);
+        GraphOperations operations = new GraphOperations(textGraph, null);
+        int samples = 20000;
+        for (boolean weighted : new boolean[]{true, false}) {
+            operations.setWeightedSampling(weighted);
+            SplittableRandom random = new SplittableRandom(24);
+            long viaX = 0;
+            for (int i = 0; i < samples; i++) {
+                String text = operations.generateNewText("a b", random);
+                if (text.equals("a x b")) {
+                    viaX++;
+                } else {
+                    assertEquals("a y b", text);
+                }
+            }
+            assertFrequency(weighted ? 0.9 : 0.5, viaX, samples);
+        }
+    }
+}
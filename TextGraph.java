@@ -1,84 +1,291 @@
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
 
 public class TextGraph {
-    private static final Pattern WORD_PATTERN = Pattern.compile("[^a-zA-Z]");
-    private final Map<String, Map<String, Integer>> graph = new HashMap<>();
-    private final Map<String, Double> tfidf = new HashMap<>();
+    // 单词驻留为整数 id，边权以 (source << 32) | target 为键累加
+    private final Vocabulary vocabulary;
+    private final LongIntHashMap edges = new LongIntHashMap();
+    private final Map<String, Double> tfidf = new TermFrequencyView();
+    // 冻结后的 CSR 快照，图发生变化时置空
+    private CompactGraph frozen;
+    // 最近一次构建的快照及其每条边在边表中的插入下标，下次冻结时只把新增的边归并进去
+    private CompactGraph base;
+    private int[] baseIndex;
+    // 快照上的强连通分量和可达性索引，按需构建，快照变化后重建
+    private ReachabilityIndex reachability;
+    // 语料统计，每次追加的文本算作一个文档，追加时原地更新
+    private final CorpusStatistics statistics;
+    // 上一个文档的最后一个单词，-1 表示没有
+    private int previousWord = -1;
+    // 从磁盘读入的图只有 CSR 快照，第一次追加文本时才展开为可修改的边表
+    private boolean edgesLoaded;
+
+    public TextGraph() {
+        this.vocabulary = new Vocabulary();
+        this.statistics = new CorpusStatistics();
+        this.edgesLoaded = true;
+    }
+
+    // 由已冻结的图构造，供 GraphFile 读取磁盘图使用；previousWord 为写出时最后一个文档的末尾单词
+    TextGraph(Vocabulary vocabulary, CorpusStatistics statistics, CompactGraph frozen, int previousWord) {
+        this.vocabulary = vocabulary;
+        this.statistics = statistics;
+        this.frozen = frozen;
+        this.previousWord = previousWord;
+        this.edgesLoaded = false;
+    }
+
+    // 最后一个文档的末尾单词 id，-1 表示没有，GraphFile 写出时保存它以便读回后继续追加
+    int previousWord() {
+        return previousWord;
+    }
 
     public void buildGraph(String filePath) throws Exception {
-        List<String> words = processFile(filePath);
         // if (words.size() < 2) throw new IllegalArgumentException("文件需要包含至少两个单词");
-        
-        calculateTFIDF(words);
-        // 将每个单词作为节点添加到图中
-        for (String word : words) graph.putIfAbsent(word, new HashMap<>());
-        
-        for (int i = 0; i < words.size() - 1; i++) {
-            String current = words.get(i);
-            String next = words.get(i + 1);
-            graph.get(current).merge(next, 1, Integer::sum);
+        // 每次构建都是一个新文档，不与之前的文档末尾相连
+        appendFile(filePath, false);
+    }
+
+    // 向已有的图追加一个文件，只处理新增文本
+    // linkPrevious 为 true 时保留上一个文档末尾单词到本文档首个单词的边
+    public void appendFile(String filePath, boolean linkPrevious) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists() || file.isDirectory()) {
+            throw new IllegalArgumentException("文件不存在: " + filePath);
         }
+        beginDocument(linkPrevious);
+        // 单词边扫描边加入图中，不再先收集成完整的单词列表
+        WordTokenizer.tokenizeFile(file, this::addWord);
+        statistics.endDocument();
     }
 
-    // 处理文件，将文件内容转换为单词列表
-    private List<String> processFile(String filePath) throws Exception {
+    // 并行构建：在 pool 上按字节区间并行分词统计，再按文件顺序合并，结果与 appendFile 完全一致
+    public void appendFileParallel(String filePath, boolean linkPrevious, ForkJoinPool pool) throws IOException {
         File file = new File(filePath);
         if (!file.exists() || file.isDirectory()) {
             throw new IllegalArgumentException("文件不存在: " + filePath);
         }
+        beginDocument(linkPrevious);
+        for (ParallelGraphBuilder.Chunk chunk : ParallelGraphBuilder.tokenize(file, pool)) {
+            mergeChunk(chunk);
+        }
+        statistics.endDocument();
+    }
 
-        List<String> words = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\s+");
-                for (String token : tokens) {
-                    if (!token.isEmpty()) {
-                        String word = normalizeWord(token);
-                        if (!word.isEmpty()) {
-                            words.add(word);
-                        }
-                        // System.out.println(word);
-                    }
-                }
+    public void buildGraphParallel(String filePath) throws IOException {
+        appendFileParallel(filePath, false, ForkJoinPool.commonPool());
+    }
+
+    // 按区间内首次出现的顺序把局部 id 映射为全局 id，保证单词和边的编号顺序与顺序构建相同
+    private void mergeChunk(ParallelGraphBuilder.Chunk chunk) {
+        if (chunk.totalWords == 0) {
+            return;
+        }
+        int[] globalIds = new int[chunk.vocabulary.size()];
+        for (int local = 0; local < globalIds.length; local++) {
+            int id = vocabulary.intern(chunk.vocabulary.word(local));
+            statistics.addTerm(id, chunk.termCounts[local]);
+            globalIds[local] = id;
+        }
+        // 补上跨越区间边界的那条边
+        if (previousWord >= 0) {
+            edges.addTo(edgeKey(previousWord, globalIds[chunk.firstWord]), 1);
+        }
+        LongIntHashMap chunkEdges = chunk.edges;
+        for (int i = 0; i < chunkEdges.size(); i++) {
+            long key = chunkEdges.keyAt(i);
+            edges.addTo(edgeKey(globalIds[(int) (key >>> 32)], globalIds[(int) key]), chunkEdges.valueAt(i));
+        }
+        previousWord = globalIds[chunk.lastWord];
+    }
+
+    // 向已有的图追加 Reader 中的文本，Reader 由调用方负责关闭
+    public void append(Reader reader, boolean linkPrevious) throws IOException {
+        beginDocument(linkPrevious);
+        WordTokenizer.tokenize(reader, this::addWord);
+        statistics.endDocument();
+    }
+
+    private void beginDocument(boolean linkPrevious) {
+        if (!linkPrevious) {
+            previousWord = -1;
+        }
+        if (!edgesLoaded) {
+            loadEdges(frozen);
+        }
+        statistics.beginDocument();
+        frozen = null;
+    }
+
+    private void loadEdges(CompactGraph compact) {
+        int[] offsets = compact.getOffsets();
+        int[] targets = compact.getTargets();
+        int[] weights = compact.getWeights();
+        for (int source = 0; source < compact.nodeCount(); source++) {
+            for (int e = offsets[source]; e < offsets[source + 1]; e++) {
+                edges.addTo(edgeKey(source, targets[e]), weights[e]);
             }
         }
-        return words;
+        edgesLoaded = true;
+        // 边按 CSR 的顺序插入，第 e 条边的插入下标就是 e
+        base = compact;
+        baseIndex = new int[compact.edgeCount()];
+        for (int e = 0; e < baseIndex.length; e++) {
+            baseIndex[e] = e;
+        }
+    }
+
+    // 将单词作为节点加入图中，并累加与上一个单词之间的边权
+    private void addWord(char[] buffer, int length) {
+        int current = vocabulary.intern(buffer, 0, length);
+        statistics.addTerm(current);
+        if (previousWord >= 0) {
+            edges.addTo(edgeKey(previousWord, current), 1);
+        }
+        previousWord = current;
+    }
+
+    static long edgeKey(int source, int target) {
+        return ((long) source << 32) | target;
     }
 
     // 规范化单词，将单词转换为小写并去除非字母字符
+    // 单词本身已经规范时直接返回原实例，不产生新对象
     public String normalizeWord(String word) {
-        return WORD_PATTERN.matcher(word).replaceAll("").toLowerCase();
+        int length = word.length();
+        int i = 0;
+        while (i < length) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return word;
+        }
+        char[] buffer = new char[length];
+        return new String(buffer, 0, normalizeWord(word, buffer));
     }
 
-    private void calculateTFIDF(List<String> words) {
-        // 存储每个单词的词频
-        Map<String, Integer> termFrequency = new HashMap<>();
-        int totalWords = words.size();
+    // 将规范化结果写入调用方提供的缓冲区（长度不小于原单词），返回规范化后的长度
+    public int normalizeWord(CharSequence word, char[] buffer) {
+        int length = 0;
+        for (int i = 0; i < word.length(); i++) {
+            int letter = WordTokenizer.toLowerLetter(word.charAt(i));
+            if (letter >= 0) {
+                buffer[length++] = (char) letter;
+            }
+        }
+        return length;
+    }
 
-        // 计算词频
-        for (String word : words) {
-            termFrequency.put(word, termFrequency.getOrDefault(word, 0) + 1);
+    // 返回只读的 CSR 快照，图未变化时复用同一个实例；追加文本后在上一个快照的基础上归并新增的边
+    public CompactGraph freeze() {
+        if (frozen == null) {
+            int[] edgeIndex = new int[edges.size()];
+            frozen = base == null
+                    ? CompactGraph.build(vocabulary, edges, edgeIndex)
+                    : CompactGraph.extend(base, baseIndex, vocabulary, edges, edgeIndex);
+            base = frozen;
+            baseIndex = edgeIndex;
         }
+        return frozen;
+    }
 
-        // 计算TF-IDF
-        for (Map.Entry<String, Integer> entry : termFrequency.entrySet()) {
-            String word = entry.getKey();
-            int tf = entry.getValue();
-            double tfidfValue = (double) tf / totalWords; 
-            // 将单词的 TF-IDF 值存储到 tfidf 中
-            tfidf.put(word, tfidfValue);
+    // snapshot 之后新增的边（键为 edgeKey），按加入的顺序排列；已有边的权重变化不在其中
+    // 边表只增不删，快照中的边恰好是边表按插入顺序的前 snapshot.edgeCount() 条
+    long[] edgesSince(CompactGraph snapshot) {
+        if (snapshot.getVocabulary() != vocabulary) {
+            throw new IllegalArgumentException("快照不属于这个图");
         }
+        if (!edgesLoaded) {
+            return new long[0];
+        }
+        long[] added = new long[Math.max(0, edges.size() - snapshot.edgeCount())];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = edges.keyAt(snapshot.edgeCount() + i);
+        }
+        return added;
+    }
+
+    // 当前快照的可达性索引，用于快速排除没有路径的单词对
+    public ReachabilityIndex getReachability() {
+        CompactGraph compact = freeze();
+        if (reachability == null || reachability.getGraph() != compact) {
+            reachability = new ReachabilityIndex(compact);
+        }
+        return reachability;
     }
 
+    // 基于 CSR 快照的只读 Map 视图
     public Map<String, Map<String, Integer>> getGraph() {
-        return graph;
+        return freeze().asMap();
     }
 
+    // TF-IDF 在查询时由语料统计即时计算，追加文档后无需重新计算全部单词
     public Map<String, Double> getTFIDF() {
         return tfidf;
     }
 
+    public CorpusStatistics getStatistics() {
+        return statistics;
+    }
+
+    // 以单词为键的只读 TF-IDF 视图
+    private final class TermFrequencyView extends AbstractMap<String, Double> {
+        @Override
+        public int size() {
+            return vocabulary.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && vocabulary.id((String) key) >= 0;
+        }
+
+        @Override
+        public Double get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int id = vocabulary.id((String) key);
+            return id < 0 ? null : statistics.tfidf(id);
+        }
+
+        @Override
+        public Set<Entry<String, Double>> entrySet() {
+            return new AbstractSet<Entry<String, Double>>() {
+                @Override
+                public int size() {
+                    return vocabulary.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Double>> iterator() {
+                    return new Iterator<Entry<String, Double>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < vocabulary.size();
+                        }
+
+                        @Override
+                        public Entry<String, Double> next() {
+                            if (next >= vocabulary.size()) {
+                                throw new NoSuchElementException();
+                            }
+                            int id = next++;
+                            return new SimpleImmutableEntry<>(vocabulary.word(id), statistics.tfidf(id));
+                        }
+                    };
+                }
+            };
+        }
+    }
+
 }
\ No newline at end of file
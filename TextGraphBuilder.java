@@ -1,6 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -10,6 +11,7 @@ public class TextGraphBuilder {
     private final Map<String, Map<String, Integer>> graph = new HashMap<>();
     private final Map<String, Double> tfidf = new HashMap<>(); // 新增：存储每个单词的TF-IDF值
     private JFrame graphFrame; // 用于保存图的窗口实例
+    private AsyncOutputSink outputSink;
 
     public static void main(String[] args) {
         TextGraphBuilder visualizer = new TextGraphBuilder();
@@ -62,6 +64,7 @@ public class TextGraphBuilder {
                         if (visualizer.graphFrame != null) {
                             visualizer.graphFrame.dispose(); // 关闭图的窗口
                         }
+                        visualizer.closeOutputSink();
                         System.out.println("程序退出。");
                         return;
                     default:
@@ -95,76 +98,55 @@ public class TextGraphBuilder {
     }
 
     private void calculateTFIDF(List<String> words) {
-        Map<String, Integer> termFrequency = new HashMap<>();
-        int totalWords = words.size();
+        Vocabulary vocabulary = new Vocabulary();
+        CorpusStatistics statistics = new CorpusStatistics();
 
-        // 计算词频
+        // 整个文件作为一个文档统计词频
+        statistics.beginDocument();
         for (String word : words) {
-            termFrequency.put(word, termFrequency.getOrDefault(word, 0) + 1);
+            statistics.addTerm(vocabulary.intern(word));
         }
+        statistics.endDocument();
 
         // 计算TF-IDF
-        for (Map.Entry<String, Integer> entry : termFrequency.entrySet()) {
-            String word = entry.getKey();
-            int tf = entry.getValue();
-            double tfidfValue = (double) tf / totalWords; // 简单的TF-IDF计算，可根据需求改进
-            tfidf.put(word, tfidfValue);
+        for (int id = 0; id < vocabulary.size(); id++) {
+            tfidf.put(vocabulary.word(id), statistics.tfidf(id));
         }
     }
 
     private void calculatePageRank() {
-        Map<String, Double> pageRank = new HashMap<>();
         int numNodes = graph.size();
-        double dampingFactor = 0.85;
-        double tolerance = 0.0001;
         double initialPR = 1.0 / numNodes;
-    
-        // 初始化PageRank值，使用TF-IDF作为初始PR值
+
+        // 把邻接表转成 CSR，节点按 keySet 的顺序编号
+        Vocabulary vocabulary = new Vocabulary();
         for (String node : graph.keySet()) {
-            double initialValue = tfidf.getOrDefault(node, initialPR);
-            pageRank.put(node, initialValue);
+            vocabulary.intern(node);
         }
-    
-        boolean converged = false;
-        while (!converged) {
-            Map<String, Double> newPageRank = new HashMap<>();
-            double diff = 0.0;
-    
-            // 计算所有出度为0的节点的总PR值
-            double sumDanglingPR = 0.0;
-            for (String node : graph.keySet()) {
-                if (graph.get(node).isEmpty()) {
-                    sumDanglingPR += pageRank.get(node);
-                }
-            }
-    
-            for (String node : graph.keySet()) {
-                double sum = 0.0;
-                // 处理来自正常节点的贡献（有出边的节点）
-                for (Map.Entry<String, Map<String, Integer>> entry : graph.entrySet()) {
-                    String source = entry.getKey();
-                    Map<String, Integer> neighbors = entry.getValue();
-                    if (neighbors.containsKey(node)) {
-                        int outDegree = neighbors.size();
-                        sum += pageRank.get(source) / outDegree;
-                    }
-                }
-    
-                // 处理出度为0的节点的贡献：均分给其他节点（numNodes -1）
-                if (numNodes > 1) { // 避免除以0
-                    sum += sumDanglingPR / (numNodes - 1);
-                }
-    
-                double newPR = (1 - dampingFactor) / numNodes + dampingFactor * sum;
-                newPageRank.put(node, newPR);
-                diff += Math.abs(newPR - pageRank.get(node));
-            }
-    
-            pageRank = newPageRank;
-            if (diff < tolerance) {
-                converged = true;
+        LongIntHashMap edges = new LongIntHashMap();
+        for (Map.Entry<String, Map<String, Integer>> entry : graph.entrySet()) {
+            int source = vocabulary.id(entry.getKey());
+            for (Map.Entry<String, Integer> neighbor : entry.getValue().entrySet()) {
+                edges.addTo(TextGraph.edgeKey(source, vocabulary.id(neighbor.getKey())), neighbor.getValue());
             }
         }
+        CompactGraph compact = CompactGraph.build(vocabulary, edges);
+
+        // 初始化PageRank值，使用TF-IDF作为初始PR值
+        double[] initial = new double[numNodes];
+        for (int node = 0; node < numNodes; node++) {
+            initial[node] = tfidf.getOrDefault(vocabulary.word(node), initialPR);
+        }
+
+        // 出度为0的节点的贡献均分给其他节点（numNodes - 1），所有节点变化之和小于阈值时收敛
+        PageRankEngine engine = new PageRankEngine(compact);
+        engine.setDanglingPolicy(PageRankEngine.DanglingPolicy.SHARED_WITH_OTHERS);
+        engine.setConvergence(PageRankEngine.Convergence.L1_NORM);
+        double[] ranks = engine.compute(initial);
+        Map<String, Double> pageRank = new HashMap<>();
+        for (int node = 0; node < numNodes; node++) {
+            pageRank.put(vocabulary.word(node), ranks[node]);
+        }
     
         // 输出PageRank值
         System.out.println("PageRank值:");
@@ -349,49 +331,50 @@ public class TextGraphBuilder {
     }
 
     private List<String> dijkstra(String start, String end) {
-        Map<String, Integer> distance = new HashMap<>();
-        Map<String, String> previous = new HashMap<>();
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(n -> n.distance));
-
-        for (String node : graph.keySet()) {
-            distance.put(node, Integer.MAX_VALUE);
-            previous.put(node, null);
+        // 给节点临时编号，用索引堆维护待处理的节点
+        List<String> nodes = new ArrayList<>(graph.keySet());
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ids.put(nodes.get(i), i);
         }
-        distance.put(start, 0);
-        queue.add(new Node(start, 0));
+        int[] distance = new int[nodes.size()];
+        int[] previous = new int[nodes.size()];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        IndexedMinHeap queue = new IndexedMinHeap(nodes.size());
+
+        int startId = ids.get(start);
+        int endId = ids.get(end);
+        distance[startId] = 0;
+        queue.offer(startId, 0);
 
         while (!queue.isEmpty()) {
-            Node current = queue.poll();
-            String currentNode = current.node;
+            int currentNode = queue.poll();
 
-            if (currentNode.equals(end)) {
+            if (currentNode == endId) {
                 break;
             }
 
-            if (current.distance > distance.get(currentNode)) {
-                continue;
-            }
-
-            for (Map.Entry<String, Integer> neighborEntry : graph.get(currentNode).entrySet()) {
-                String neighbor = neighborEntry.getKey();
+            for (Map.Entry<String, Integer> neighborEntry : graph.get(nodes.get(currentNode)).entrySet()) {
+                int neighbor = ids.get(neighborEntry.getKey());
                 int weight = neighborEntry.getValue();
-                int newDistance = distance.get(currentNode) + weight;
+                int newDistance = distance[currentNode] + weight;
 
-                if (newDistance < distance.get(neighbor)) {
-                    distance.put(neighbor, newDistance);
-                    previous.put(neighbor, currentNode);
-                    queue.add(new Node(neighbor, newDistance));
+                if (newDistance < distance[neighbor]) {
+                    distance[neighbor] = newDistance;
+                    previous[neighbor] = currentNode;
+                    queue.offer(neighbor, newDistance);
                 }
             }
         }
 
-        if (previous.get(end) == null) {
+        if (previous[endId] < 0) {
             return null;
         }
 
         List<String> path = new ArrayList<>();
-        for (String at = end; at != null; at = previous.get(at)) {
-            path.add(at);
+        for (int at = endId; at >= 0; at = previous[at]) {
+            path.add(nodes.get(at));
         }
         Collections.reverse(path);
         return path;
@@ -462,23 +445,30 @@ public class TextGraphBuilder {
         writeVisitedNodesToFile(visitedNodes);
     }
 
+    // 游走路径交给后台线程写出到当前目录，每条一行；与同一文件上的其他输出共用一个实例
     private void writeVisitedNodesToFile(List<String> visitedNodes) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("F:\\作业\\7.大三春\\软件工程\\实验1\\code\\helloworld\\src\\random_walk_path.txt"))) {
-            writer.write(String.join(" ", visitedNodes));
-            System.out.println("遍历路径已保存到 random_walk_path.txt 文件中。");
+        try {
+            if (outputSink == null) {
+                outputSink = AsyncOutputSink.shared(Paths.get("random_walk_path.txt"));
+            }
+            outputSink.write(String.join(" ", visitedNodes));
+            System.out.println("遍历路径已加入 " + outputSink.currentFile().getFileName() + " 的写出队列。");
         } catch (IOException e) {
             System.err.println("写入文件时出错: " + e.getMessage());
         }
     }
 
-    static class Node {
-        String node;
-        int distance;
-
-        Node(String node, int distance) {
-            this.node = node;
-            this.distance = distance;
+    // 释放游走路径的输出，写完其中的记录
+    private void closeOutputSink() {
+        if (outputSink == null) {
+            return;
+        }
+        try {
+            outputSink.close();
+        } catch (IOException e) {
+            System.err.println("写入文件时出错: " + e.getMessage());
         }
+        outputSink = null;
     }
 
     static class GraphPanel extends JPanel {
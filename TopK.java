@@ -0,0 +1,30 @@
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+// 按得分取前 k 个：维护大小为 k 的最小堆，代价为 O(n log k)
+// 得分相同时按 id 升序，结果与完整排序后取前 k 个相同
+class TopK {
+    private TopK() {
+    }
+
+    // scores[0..count) 中得分最高的 k 个下标，按得分降序排列；ids 为 null 时下标本身就是 id
+    static int[] top(double[] scores, int[] ids, int count, int k) {
+        Comparator<Integer> order = (a, b) -> scores[a] != scores[b]
+                ? Double.compare(scores[a], scores[b])
+                : Integer.compare(ids == null ? b : ids[b], ids == null ? a : ids[a]);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(order);
+        for (int i = 0; i < count && k > 0; i++) {
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (order.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll();
+        }
+        return result;
+    }
+}
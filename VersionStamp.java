@@ -0,0 +1,23 @@
+import java.util.Arrays;
+
+// 用版本号代替清空：每次查询取一个新的版本号，标记数组中等于它的元素才属于本次查询，查询之间不需要清空数组
+// 多个标记数组共用一个版本号，版本号溢出时才把它们全部清零
+class VersionStamp {
+    private final int[][] stamps;
+    private int version;
+
+    VersionStamp(int[]... stamps) {
+        this.stamps = stamps;
+    }
+
+    // 开始一次新的查询，返回它的版本号
+    int next() {
+        if (++version == Integer.MAX_VALUE) {
+            for (int[] stamp : stamps) {
+                Arrays.fill(stamp, 0);
+            }
+            version = 1;
+        }
+        return version;
+    }
+}
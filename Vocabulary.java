@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+// 词表：将单词驻留为从 0 开始的连续整数 id（按首次出现的顺序分配）
+public class Vocabulary {
+    private static final int EMPTY = 0;
+
+    private String[] words = new String[16];
+    // 开放寻址哈希槽，存放 id + 1，0 表示空槽
+    private int[] slots = new int[32];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public String word(int id) {
+        return words[id];
+    }
+
+    // 查询单词的 id，不存在时返回 -1
+    public int id(String word) {
+        int mask = slots.length - 1;
+        for (int i = mix(word.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == EMPTY) {
+                return -1;
+            }
+            if (words[slot - 1].equals(word)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    // 按字符区间查询单词的 id，不会创建 String
+    public int id(char[] buf, int offset, int length) {
+        int mask = slots.length - 1;
+        for (int i = mix(hash(buf, offset, length)) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == EMPTY) {
+                return -1;
+            }
+            if (matches(words[slot - 1], buf, offset, length)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    // 驻留单词，已存在时直接返回原 id
+    public int intern(String word) {
+        int mask = slots.length - 1;
+        int i = mix(word.hashCode()) & mask;
+        for (; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == EMPTY) {
+                break;
+            }
+            if (words[slot - 1].equals(word)) {
+                return slot - 1;
+            }
+        }
+        return add(word, i);
+    }
+
+    // 按字符区间驻留单词，只有遇到新单词时才会创建 String
+    public int intern(char[] buf, int offset, int length) {
+        int mask = slots.length - 1;
+        int i = mix(hash(buf, offset, length)) & mask;
+        for (; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == EMPTY) {
+                break;
+            }
+            if (matches(words[slot - 1], buf, offset, length)) {
+                return slot - 1;
+            }
+        }
+        return add(new String(buf, offset, length), i);
+    }
+
+    private int add(String word, int slotIndex) {
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+        }
+        int id = size++;
+        words[id] = word;
+        slots[slotIndex] = id + 1;
+        // 负载因子超过 0.5 时扩容
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] newSlots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int i = mix(words[id].hashCode()) & mask;
+            while (newSlots[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            newSlots[i] = id + 1;
+        }
+        slots = newSlots;
+    }
+
+    // 与 String.hashCode 保持一致，保证两种查询方式落在同一个槽位
+    private static int hash(char[] buf, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String word, char[] buf, int offset, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != buf[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+// 流式分词器：按空白切分单词，只保留英文字母并转为小写，每个单词直接回调给调用方
+// 单词写入可复用的字符缓冲区，扫描过程中不会为每行或每个单词创建对象
+public class WordTokenizer {
+    // 每次映射的最大字节数，超过的文件分段映射
+    private static final long MAP_CHUNK = 1L << 30;
+
+    public interface WordSink {
+        // buffer 只在回调期间有效，需要保留时由调用方自行复制
+        void accept(char[] buffer, int length);
+    }
+
+    private final WordSink sink;
+    private char[] buffer = new char[64];
+    private int length;
+
+    public WordTokenizer(WordSink sink) {
+        this.sink = sink;
+    }
+
+    // 以内存映射方式读取整个文件并逐字节扫描
+    public static void tokenizeFile(File file, WordSink sink) throws IOException {
+        WordTokenizer tokenizer = new WordTokenizer(sink);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_CHUNK) {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+                        position, Math.min(MAP_CHUNK, size - position));
+                tokenizer.feed(bytes);
+            }
+        }
+        tokenizer.finish();
+    }
+
+    // 扫描一段字节，跨段的单词会保留到下一次调用
+    // 非 ASCII 字节（包括多字节 UTF-8 字符）既不是空白也不是字母，直接丢弃
+    public void feed(MappedByteBuffer bytes) {
+        int limit = bytes.limit();
+        for (int i = bytes.position(); i < limit; i++) {
+            accept(bytes.get(i));
+        }
+    }
+
+    // 扫描一段字符，用于从 Reader 读取的输入
+    public void feed(char[] chars, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            accept(chars[i]);
+        }
+    }
+
+    // 以可复用的字符缓冲区读取 Reader 中的全部内容
+    public static void tokenize(Reader reader, WordSink sink) throws IOException {
+        WordTokenizer tokenizer = new WordTokenizer(sink);
+        char[] chars = new char[8192];
+        int count;
+        while ((count = reader.read(chars)) != -1) {
+            tokenizer.feed(chars, 0, count);
+        }
+        tokenizer.finish();
+    }
+
+    // 输入结束，输出最后一个单词
+    public void finish() {
+        flush();
+    }
+
+    private void accept(int c) {
+        int letter = toLowerLetter(c);
+        if (letter >= 0) {
+            append((char) letter);
+        } else if (isWhitespace(c)) {
+            flush();
+        }
+    }
+
+    private void append(char c) {
+        if (length == buffer.length) {
+            char[] grown = new char[length * 2];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        buffer[length++] = c;
+    }
+
+    private void flush() {
+        // 只包含非字母字符的单词规范化后为空，直接跳过
+        if (length > 0) {
+            sink.accept(buffer, length);
+            length = 0;
+        }
+    }
+
+    // 英文字母返回对应的小写字母，其他字符返回 -1
+    static int toLowerLetter(int c) {
+        if (c >= 'a' && c <= 'z') {
+            return c;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c + ('a' - 'A');
+        }
+        return -1;
+    }
+
+    // 与正则 \s 相同的空白字符集合
+    static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}